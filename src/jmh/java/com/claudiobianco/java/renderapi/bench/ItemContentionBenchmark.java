@@ -0,0 +1,78 @@
+package com.claudiobianco.java.renderapi.bench;
+
+import com.claudiobianco.java.renderapi.domain.ItemPatch;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.domain.VersionConflictException;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Muitas threads escrevendo em poucos ids. {@code put} e {@code patch}
+ * esperam o lock do item; {@code optimisticPatch} é o cliente que lê a versão
+ * e manda o patch com If-Match, repetindo a cada conflito, e
+ * {@code retries} conta quantas tentativas extras isso custou.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ItemContentionBenchmark {
+
+    @Param({"1", "4", "64"})
+    int hotIds;
+
+    ItemService service;
+    long[] ids;
+    ItemRequest update;
+    ItemPatch patch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        service = new ItemService();
+        ids = new long[hotIds];
+        for (int i = 0; i < hotIds; i++) ids[i] = service.create(ItemServiceBenchmark.request(i)).id();
+        update = ItemServiceBenchmark.request(hotIds + 1);
+        patch = ItemPatch.of(Map.of("preco", 42.0));
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Retries {
+        public long retries;
+    }
+
+    private long hotId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    public ItemResponse put() {
+        return service.update(hotId(), update);
+    }
+
+    @Benchmark
+    public ItemResponse patch() {
+        return service.patch(hotId(), patch);
+    }
+
+    @Benchmark
+    public ItemResponse optimisticPatch(Retries counter) {
+        long id = hotId();
+        while (true) {
+            long version = service.getVersioned(id).version();
+            try {
+                return service.patch(id, patch, version);
+            } catch (VersionConflictException e) {
+                counter.retries++;
+            }
+        }
+    }
+}
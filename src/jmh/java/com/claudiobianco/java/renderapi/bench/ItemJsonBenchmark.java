@@ -0,0 +1,74 @@
+package com.claudiobianco.java.renderapi.bench;
+
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.domain.VersionedItem;
+import com.claudiobianco.java.renderapi.web.ItemJsonCache;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do Jackson nos DTOs da API, com o ObjectMapper configurado como no
+ * Spring Boot, e do acerto no {@link ItemJsonCache} para comparação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemJsonBenchmark {
+
+    ObjectMapper mapper;
+    ItemResponse item;
+    PagedResponse<ItemResponse> page;
+    byte[] itemJson;
+    byte[] requestJson;
+    VersionedItem versioned;
+    ItemJsonCache cache;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        ItemService service = new ItemService();
+        for (int i = 0; i < 50; i++) service.create(ItemServiceBenchmark.request(i));
+        page = service.list(0, 50);
+        item = page.items().get(0);
+        itemJson = mapper.writeValueAsBytes(item);
+        requestJson = mapper.writeValueAsBytes(ItemServiceBenchmark.request(7));
+        versioned = service.getVersioned(item.id());
+        cache = new ItemJsonCache(service, mapper, DataSize.ofMegabytes(1));
+        cache.item(versioned);
+    }
+
+    @Benchmark
+    public byte[] encodeItem() throws Exception {
+        return mapper.writeValueAsBytes(item);
+    }
+
+    @Benchmark
+    public byte[] encodePage() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public ItemResponse decodeItem() throws Exception {
+        return mapper.readValue(itemJson, ItemResponse.class);
+    }
+
+    @Benchmark
+    public ItemRequest decodeRequest() throws Exception {
+        return mapper.readValue(requestJson, ItemRequest.class);
+    }
+
+    @Benchmark
+    public byte[] cachedItem() {
+        return cache.item(versioned);
+    }
+}
@@ -0,0 +1,101 @@
+package com.claudiobianco.java.renderapi.bench;
+
+import com.claudiobianco.java.renderapi.domain.ItemFilter;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações do {@link ItemService} com o store já populado. Os ids sorteados
+ * ficam sempre em [1, size] e o create remove o que criou, então o tamanho
+ * do store não muda durante a medição.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ItemServiceBenchmark {
+
+    static final String[] CATEGORIAS = {"Eletrônicos", "Livros", "Casa", "Esporte", "Moda"};
+    static final String[] STATUS = {"ATIVO", "INATIVO"};
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int size;
+
+    ItemService service;
+    ItemRequest update;
+    ItemRequest create;
+    ItemFilter filter;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        service = new ItemService();
+        List<ItemRequest> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < size; i++) {
+            batch.add(request(i));
+            if (batch.size() == 10_000) {
+                service.createAll(batch);
+                batch.clear();
+            }
+        }
+        service.createAll(batch);
+        update = request(size + 1);
+        create = request(size + 2);
+        filter = new ItemFilter("Livros", "ATIVO", null, null);
+    }
+
+    static ItemRequest request(int i) {
+        return new ItemRequest("Produto " + i, "Descrição do produto número " + i,
+                STATUS[i % STATUS.length], 10.0 + (i % 5_000), CATEGORIAS[i % CATEGORIAS.length]);
+    }
+
+    long randomId() {
+        return 1 + ThreadLocalRandom.current().nextLong(size);
+    }
+
+    @Benchmark
+    public ItemResponse get() {
+        return service.get(randomId());
+    }
+
+    @Benchmark
+    public PagedResponse<ItemResponse> listFirstPage() {
+        return service.list(0, 50);
+    }
+
+    @Benchmark
+    public PagedResponse<ItemResponse> listMiddlePage() {
+        return service.list(size / 100, 50);
+    }
+
+    @Benchmark
+    public PagedResponse<ItemResponse> listFiltered() {
+        return service.list(0, 50, filter);
+    }
+
+    @Benchmark
+    public PagedResponse<ItemResponse> search() {
+        return service.search("produto 42", 0, 20);
+    }
+
+    @Benchmark
+    public ItemResponse update() {
+        return service.update(randomId(), update);
+    }
+
+    @Benchmark
+    public ItemResponse createAndDelete() {
+        ItemResponse created = service.create(create);
+        service.delete(created.id());
+        return created;
+    }
+}
@@ -0,0 +1,8 @@
+package com.claudiobianco.java.renderapi.bench;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/** Os mesmos cenários do {@link ItemServiceBenchmark} com 4 threads disputando o store. */
+@Threads(4)
+public class ItemServiceConcurrentBenchmark extends ItemServiceBenchmark {
+}
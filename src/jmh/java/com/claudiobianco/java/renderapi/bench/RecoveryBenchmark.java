@@ -0,0 +1,76 @@
+package com.claudiobianco.java.renderapi.bench;
+
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.persistence.ItemJournal;
+import com.claudiobianco.java.renderapi.persistence.PersistenceProperties;
+import com.claudiobianco.java.renderapi.persistence.PersistenceProperties.FsyncPolicy;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tempo de startup com persistência ligada: carrega o snapshot e reaplica um
+ * WAL com 10% de updates em cima dele.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    Path dir;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        dir = Files.createTempDirectory("items-recovery");
+        ItemService service = new ItemService();
+        ItemJournal journal = new ItemJournal(service, properties());
+        journal.start();
+        List<ItemRequest> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < size; i++) {
+            batch.add(ItemServiceBenchmark.request(i));
+            if (batch.size() == 10_000) {
+                service.createAll(batch);
+                batch.clear();
+            }
+        }
+        service.createAll(batch);
+        journal.snapshot();
+        for (long id = 1; id <= size; id += 10) service.update(id, ItemServiceBenchmark.request((int) id + 1));
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    private PersistenceProperties properties() {
+        return new PersistenceProperties(true, dir, FsyncPolicy.NEVER, Duration.ofSeconds(1), Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public ItemService recover() throws IOException {
+        ItemService service = new ItemService();
+        ItemJournal journal = new ItemJournal(service, properties());
+        journal.start();
+        journal.close();
+        return service;
+    }
+}
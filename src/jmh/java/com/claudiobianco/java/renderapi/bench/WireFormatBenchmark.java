@@ -0,0 +1,82 @@
+package com.claudiobianco.java.renderapi.bench;
+
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON x CBOR x Smile nos DTOs da API, com os mappers montados como nos
+ * conversores do Spring MVC. Além do tempo, o setup imprime o tamanho de cada
+ * payload cru e com gzip, que é o que vai para a rede.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<PagedResponse<ItemResponse>> PAGE = new TypeReference<>() {};
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"20", "1000"})
+    int pageSize;
+
+    ObjectMapper mapper;
+    PagedResponse<ItemResponse> page;
+    ItemRequest request;
+    byte[] pageBytes;
+    byte[] requestBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        mapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        ItemService service = new ItemService();
+        for (int i = 0; i < pageSize; i++) service.create(ItemServiceBenchmark.request(i));
+        page = service.list(0, pageSize);
+        request = ItemServiceBenchmark.request(7);
+        pageBytes = mapper.writeValueAsBytes(page);
+        requestBytes = mapper.writeValueAsBytes(request);
+        System.out.printf("%n[%s, %d itens] página: %d bytes (gzip %d), request: %d bytes%n",
+                format, pageSize, pageBytes.length, gzipped(pageBytes), requestBytes.length);
+    }
+
+    private static int gzipped(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public byte[] encodePage() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PagedResponse<ItemResponse> decodePage() throws Exception {
+        return mapper.readValue(pageBytes, PAGE);
+    }
+
+    @Benchmark
+    public ItemRequest decodeRequest() throws Exception {
+        return mapper.readValue(requestBytes, ItemRequest.class);
+    }
+}
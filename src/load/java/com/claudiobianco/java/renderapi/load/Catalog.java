@@ -0,0 +1,90 @@
+package com.claudiobianco.java.renderapi.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Itens que o teste conhece: os semeados antes da medição, que leituras e
+ * updates usam, e os criados durante ela, que são os únicos removidos.
+ */
+final class Catalog {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] STATUS = {"ATIVO", "INATIVO", "PENDENTE"};
+    private static final String[] CATEGORIAS = {"ELETRONICOS", "ACESSORIOS", "LIVROS", "CASA", "ESPORTE"};
+    private static final int BATCH = 1_000;
+
+    private final String items;
+    private final long[] seeded;
+    private final Queue<Long> created = new ConcurrentLinkedQueue<>();
+
+    private Catalog(String items, long[] seeded) {
+        this.items = items;
+        this.seeded = seeded;
+    }
+
+    /** Cria {@code count} itens via {@code POST /items:batch}, que existe nas variantes servlet e reativa. */
+    static Catalog seed(HttpClient client, String baseUrl, int count) throws IOException, InterruptedException {
+        ObjectMapper mapper = new ObjectMapper();
+        long[] ids = new long[count];
+        for (int from = 0; from < count; from += BATCH) {
+            StringBuilder body = new StringBuilder("{\"operations\":[");
+            int to = Math.min(count, from + BATCH);
+            for (int i = from; i < to; i++) {
+                if (i > from) body.append(',');
+                body.append("{\"op\":\"create\",\"item\":").append(json(i)).append('}');
+            }
+            body.append("]}");
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/items:batch"))
+                    .timeout(TIMEOUT).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Falha ao semear o catálogo: HTTP " + response.statusCode() + " " + response.body());
+            }
+            int i = from;
+            for (JsonNode result : mapper.readTree(response.body()).get("results")) ids[i++] = result.get("id").asLong();
+        }
+        return new Catalog(baseUrl + "/api/v1/items", ids);
+    }
+
+    static String json(int n) {
+        return "{\"nome\":\"Produto " + n + "\",\"descricao\":\"Descrição do produto número " + n
+                + "\",\"status\":\"" + STATUS[n % STATUS.length] + "\",\"preco\":" + (10.0 + n % 5_000)
+                + ",\"categoria\":\"" + CATEGORIAS[n % CATEGORIAS.length] + "\"}";
+    }
+
+    String items() {
+        return items;
+    }
+
+    int seeded() {
+        return seeded.length;
+    }
+
+    long anySeeded(ThreadLocalRandom random) {
+        return seeded[random.nextInt(seeded.length)];
+    }
+
+    void created(long id) {
+        created.add(id);
+    }
+
+    boolean hasCreated() {
+        return !created.isEmpty();
+    }
+
+    Long takeCreated() {
+        return created.poll();
+    }
+}
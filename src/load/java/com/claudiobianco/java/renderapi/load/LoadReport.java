@@ -0,0 +1,111 @@
+package com.claudiobianco.java.renderapi.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Relatório de uma execução, em JSON, para ser guardado e comparado entre
+ * commits. Latências em milissegundos, já corrigidas da coordinated omission.
+ */
+record LoadReport(String commit, boolean dirty, String startedAt, String target, String app,
+                  String workload, Map<Operation, Integer> weights, int items, List<StepReport> steps) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record StepReport(double rate, long seconds, long sent, long completed, double achievedRate,
+                      double maxSchedulerLagMs, Map<String, Long> errors,
+                      Percentiles latency, Percentiles serviceTime, Map<Operation, Percentiles> operations) {
+
+        static StepReport of(OpenLoopRunner.Step step) {
+            Map<String, Long> errors = new TreeMap<>();
+            step.errors.forEach((kind, count) -> errors.put(kind, count.sum()));
+            Map<Operation, Percentiles> operations = new LinkedHashMap<>();
+            step.byOperation.forEach((op, h) -> {
+                if (h.getTotalCount() > 0) operations.put(op, Percentiles.of(h));
+            });
+            return new StepReport(step.rate, step.duration.toSeconds(), step.sent.sum(), step.latency.getTotalCount(),
+                    round(step.achievedRate()), round(step.maxLagNanos / 1e6), errors,
+                    Percentiles.of(step.latency), Percentiles.of(step.serviceTime), operations);
+        }
+    }
+
+    record Percentiles(long count, double mean, double p50, double p90, double p99, double p999, double max) {
+
+        static Percentiles of(Histogram h) {
+            return new Percentiles(h.getTotalCount(), ms(h.getMean()), ms(h.getValueAtPercentile(50)),
+                    ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+        }
+
+        private static double ms(double micros) {
+            return round(micros / 1000.0);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        MAPPER.writeValue(file.toFile(), this);
+    }
+
+    static LoadReport read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), LoadReport.class);
+    }
+
+    /** Distribuição completa no formato .hgrm, que o plotter do HdrHistogram aceita. */
+    static void writeDistribution(Histogram histogram, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    static void print(StepReport step, PrintStream out) {
+        out.printf("%n%.0f req/s por %ds: %d enviadas, %d respondidas (%.1f/s), atraso máx. do gerador %.1f ms%n",
+                step.rate(), step.seconds(), step.sent(), step.completed(), step.achievedRate(), step.maxSchedulerLagMs());
+        if (!step.errors().isEmpty()) out.println("  erros: " + step.errors());
+        out.printf("  %-16s %8s %9s %9s %9s %9s %9s%n", "ms", "n", "p50", "p90", "p99", "p99.9", "max");
+        line(out, "latência", step.latency());
+        line(out, "tempo de serviço", step.serviceTime());
+        step.operations().forEach((op, p) -> line(out, "  " + op, p));
+    }
+
+    private static void line(PrintStream out, String name, Percentiles p) {
+        out.printf("  %-16s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, p.count(), p.p50(), p.p90(), p.p99(), p.p999(), p.max());
+    }
+
+    /** Compara etapa a etapa (pela taxa) com um relatório anterior. */
+    void compare(LoadReport base, PrintStream out) {
+        out.printf("%nComparação: %s (%s) -> %s (%s)%n", base.commit(), base.workload(), commit(), workload());
+        out.printf("  %-10s %-10s %12s %12s %12s%n", "req/s", "", "vazão", "p50 ms", "p99 ms");
+        for (StepReport step : steps) {
+            StepReport before = base.steps().stream().filter(s -> s.rate() == step.rate()).findFirst().orElse(null);
+            if (before == null) continue;
+            out.printf("  %-10.0f %-10s %12.1f %12.2f %12.2f%n", step.rate(), "antes",
+                    before.achievedRate(), before.latency().p50(), before.latency().p99());
+            out.printf("  %-10s %-10s %12.1f %12.2f %12.2f%n", "", "depois",
+                    step.achievedRate(), step.latency().p50(), step.latency().p99());
+            out.printf("  %-10s %-10s %11.1f%% %11.1f%% %11.1f%%%n", "", "variação",
+                    delta(before.achievedRate(), step.achievedRate()),
+                    delta(before.latency().p50(), step.latency().p50()),
+                    delta(before.latency().p99(), step.latency().p99()));
+        }
+    }
+
+    private static double delta(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+}
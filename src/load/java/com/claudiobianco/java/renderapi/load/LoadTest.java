@@ -0,0 +1,184 @@
+package com.claudiobianco.java.renderapi.load;
+
+import com.claudiobianco.java.renderapi.RenderApiApplication;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de carga da API de itens em malha aberta (ver {@link OpenLoopRunner}).
+ *
+ * <p>Sobe a aplicação numa JVM separada (ou usa {@code --url}), semeia o
+ * catálogo, aquece na primeira taxa e mede cada taxa pedida em sequência:
+ * subir a taxa em degraus mostra onde a latência desanda. O relatório vai
+ * para {@code target/load} em JSON, com a distribuição completa de cada etapa
+ * em {@code .hgrm}.
+ *
+ * <pre>
+ * mvn -Pload test-compile exec:exec@load -Dload.args="--workload=read-heavy --rates=500,1000,2000 --duration=30s"
+ * </pre>
+ *
+ * Opções ({@code --nome=valor}): {@code workload} (read-heavy, write-heavy,
+ * deep-pagination, search-heavy, mixed), {@code rates}, {@code duration},
+ * {@code warmup}, {@code items}, {@code max-in-flight}, {@code url},
+ * {@code jvm-args}, {@code app-args} (para a JVM e a aplicação que o teste sobe),
+ * {@code out} e {@code compare} (relatório anterior para comparar).
+ */
+public final class LoadTest {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        Workload workload = Workload.parse(options.getOrDefault("workload", "mixed"));
+        double[] rates = Arrays.stream(options.getOrDefault("rates", "200,400,800").split(","))
+                .mapToDouble(r -> Double.parseDouble(r.trim())).toArray();
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "15s"));
+        int items = Integer.parseInt(options.getOrDefault("items", "10000"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        Path out = Path.of(options.getOrDefault("out", "target/load"));
+        String jvmArgs = options.getOrDefault("jvm-args", "-Xmx1g");
+        String appArgs = options.getOrDefault("app-args", "");
+
+        String stamp = LocalDateTime.now().format(STAMP);
+        // poucas threads para os callbacks: o gerador não deve disputar CPU com a aplicação
+        ExecutorService callbacks = Executors.newFixedThreadPool(2);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(callbacks)
+                .build();
+
+        Process process = null;
+        String url = options.get("url");
+        try {
+            if (url == null) {
+                int port = freePort();
+                url = "http://localhost:" + port;
+                process = start(port, jvmArgs, appArgs, out.resolve(stamp + "-app.log"));
+            }
+            awaitHealthy(client, url, process);
+
+            System.out.printf("Semeando %d itens em %s%n", items, url);
+            Catalog catalog = Catalog.seed(client, url, items);
+            OpenLoopRunner runner = new OpenLoopRunner(client, catalog, workload, maxInFlight);
+            if (!warmup.isZero()) {
+                System.out.printf("Aquecendo %ds a %.0f req/s (%s)%n", warmup.toSeconds(), rates[0], workload.label());
+                runner.run(rates[0], warmup);
+            }
+
+            List<LoadReport.StepReport> steps = new ArrayList<>();
+            for (double rate : rates) {
+                OpenLoopRunner.Step step = runner.run(rate, duration);
+                LoadReport.StepReport report = LoadReport.StepReport.of(step);
+                LoadReport.print(report, System.out);
+                LoadReport.writeDistribution(step.latency,
+                        out.resolve(stamp + "-" + workload.label() + "-" + (long) rate + "rps.hgrm"));
+                steps.add(report);
+            }
+
+            String[] commit = commit();
+            LoadReport report = new LoadReport(commit[0], Boolean.parseBoolean(commit[1]), stamp, url,
+                    process == null ? null : (jvmArgs + " " + appArgs).trim(), workload.label(), workload.weights(), items, steps);
+            Path file = out.resolve(stamp + "-" + workload.label() + ".json");
+            report.write(file);
+            System.out.println("\nRelatório: " + file);
+            if (options.containsKey("compare")) report.compare(LoadReport.read(Path.of(options.get("compare"))), System.out);
+        } finally {
+            if (process != null) {
+                process.destroy();
+                if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly();
+            }
+            callbacks.shutdownNow();
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Opção inválida: " + arg);
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    /** Mesma classpath deste processo, então testa exatamente o código compilado do commit atual. */
+    private static Process start(int port, String jvmArgs, String appArgs, Path log) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(split(jvmArgs));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(RenderApiApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.addAll(split(appArgs));
+        Files.createDirectories(log.getParent());
+        System.out.println("Subindo a aplicação (log em " + log + ")");
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+    }
+
+    private static List<String> split(String args) {
+        return args.isBlank() ? List.of() : Arrays.asList(args.trim().split("\\s+"));
+    }
+
+    private static void awaitHealthy(HttpClient client, String url, Process process) throws Exception {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(url + "/actuator/health")).timeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(90);
+        while (System.nanoTime() < deadline) {
+            if (process != null && !process.isAlive()) throw new IllegalStateException("A aplicação terminou ao subir");
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // ainda subindo
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("A aplicação não ficou saudável em " + url);
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /** Commit atual e se há mudanças não commitadas, para saber o que o relatório mediu. */
+    private static String[] commit() {
+        try {
+            return new String[]{git("rev-parse", "--short", "HEAD"),
+                    Boolean.toString(!git("status", "--porcelain", "--untracked-files=no").isEmpty())};
+        } catch (IOException | InterruptedException e) {
+            return new String[]{"desconhecido", "false"};
+        }
+    }
+
+    private static String git(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(args));
+        Process git = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (git.waitFor() != 0) throw new IOException(output);
+        return output;
+    }
+}
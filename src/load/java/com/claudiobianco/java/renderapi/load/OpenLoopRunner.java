@@ -0,0 +1,144 @@
+package com.claudiobianco.java.renderapi.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador em malha aberta: a i-ésima requisição está marcada para
+ * {@code início + i / taxa}, independentemente de as anteriores já terem
+ * respondido. A latência é medida a partir desse horário marcado, não do
+ * envio, então quando o servidor (ou o próprio gerador) atrasa, o tempo que a
+ * requisição passou esperando para sair também entra na conta. Medir só do
+ * envio é a "coordinated omission": um servidor travado faria o gerador parar
+ * de mandar e o histograma mostraria só as requisições rápidas.
+ *
+ * <p>O tempo de serviço (do envio à resposta) também é registrado, para
+ * mostrar quanto da latência é fila.
+ */
+final class OpenLoopRunner {
+
+    // 1 µs a 1 h, 3 dígitos significativos
+    private static final long HIGHEST = TimeUnit.HOURS.toMicros(1);
+
+    private final HttpClient client;
+    private final Catalog catalog;
+    private final Workload workload;
+    private final int maxInFlight;
+
+    OpenLoopRunner(HttpClient client, Catalog catalog, Workload workload, int maxInFlight) {
+        this.client = client;
+        this.catalog = catalog;
+        this.workload = workload;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** Dispara {@code rate} requisições por segundo durante {@code duration} e espera as pendentes. */
+    Step run(double rate, Duration duration) throws InterruptedException {
+        Step step = new Step(rate, duration);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * periodNanos);
+            if (intended - end >= 0) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            // com o limite atingido o gerador espera, mas a latência continua contando do horário marcado
+            inFlight.acquire();
+            step.maxLagNanos = Math.max(step.maxLagNanos, System.nanoTime() - intended);
+            Operation op = workload.next(random);
+            if (op == Operation.DELETE && !catalog.hasCreated()) op = Operation.CREATE;
+            send(step, op, intended, inFlight);
+        }
+        step.elapsedNanos = System.nanoTime() - start;
+        if (!inFlight.tryAcquire(maxInFlight, Catalog.TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS)) {
+            step.error("sem resposta ao fim da etapa", maxInFlight - inFlight.availablePermits());
+        }
+        return step;
+    }
+
+    private void send(Step step, Operation op, long intended, Semaphore inFlight) {
+        step.sent.increment();
+        long sent = System.nanoTime();
+        client.sendAsync(op.request(catalog, ThreadLocalRandom.current()), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    try {
+                        long done = System.nanoTime();
+                        step.record(op, done - intended, done - sent);
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                            step.error(cause instanceof HttpTimeoutException ? "timeout" : cause.getClass().getSimpleName(), 1);
+                        } else if (response.statusCode() >= 400) {
+                            step.error("HTTP " + response.statusCode(), 1);
+                        } else if (op == Operation.CREATE) {
+                            catalog.created(id(response.body()));
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+    }
+
+    /** Id de um ItemResponse sem passar pelo Jackson: o gerador deve gastar o mínimo de CPU. */
+    private static long id(String json) {
+        int at = json.indexOf("\"id\":") + 5;
+        int end = at;
+        while (end < json.length() && Character.isDigit(json.charAt(end))) end++;
+        return Long.parseLong(json, at, end, 10);
+    }
+
+    /** Resultado de uma etapa (uma taxa). */
+    static final class Step {
+        final double rate;
+        final Duration duration;
+        final LongAdder sent = new LongAdder();
+        final Histogram latency = histogram();
+        final Histogram serviceTime = histogram();
+        final Map<Operation, Histogram> byOperation = new EnumMap<>(Operation.class);
+        final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        long elapsedNanos;
+        long maxLagNanos;
+
+        Step(double rate, Duration duration) {
+            this.rate = rate;
+            this.duration = duration;
+            for (Operation op : Operation.values()) byOperation.put(op, histogram());
+        }
+
+        private static Histogram histogram() {
+            return new ConcurrentHistogram(HIGHEST, 3);
+        }
+
+        void record(Operation op, long latencyNanos, long serviceNanos) {
+            long micros = Math.min(HIGHEST, Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            latency.recordValue(micros);
+            byOperation.get(op).recordValue(micros);
+            serviceTime.recordValue(Math.min(HIGHEST, Math.max(1, TimeUnit.NANOSECONDS.toMicros(serviceNanos))));
+        }
+
+        void error(String kind, long count) {
+            errors.computeIfAbsent(kind, k -> new LongAdder()).add(count);
+        }
+
+        /** Respostas (com ou sem erro) por segundo de etapa. */
+        double achievedRate() {
+            return latency.getTotalCount() / (elapsedNanos / 1e9);
+        }
+    }
+}
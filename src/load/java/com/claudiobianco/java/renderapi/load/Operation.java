@@ -0,0 +1,75 @@
+package com.claudiobianco.java.renderapi.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Uma chamada da API, montada a partir do catálogo semeado. */
+enum Operation {
+
+    GET_ITEM {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return get(c, "/" + c.anySeeded(r));
+        }
+    },
+    LIST_PAGE {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return get(c, "?page=" + r.nextInt(10) + "&size=20");
+        }
+    },
+    /** Offset em qualquer ponto do catálogo, não só nas primeiras páginas. */
+    LIST_DEEP {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return get(c, "?page=" + r.nextInt(Math.max(1, c.seeded() / 50)) + "&size=50");
+        }
+    },
+    LIST_CURSOR {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return get(c, "?after=" + c.anySeeded(r) + "&limit=50");
+        }
+    },
+    SEARCH {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return get(c, "/search?q=produto+" + r.nextInt(1, 1000) + "&size=20");
+        }
+    },
+    STATS {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return get(c, "/stats");
+        }
+    },
+    CREATE {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return builder(c, "").POST(body(r)).build();
+        }
+    },
+    UPDATE {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return builder(c, "/" + c.anySeeded(r)).PUT(body(r)).build();
+        }
+    },
+    /** Remove só itens criados durante o teste, para as leituras não darem 404. */
+    DELETE {
+        HttpRequest request(Catalog c, ThreadLocalRandom r) {
+            return builder(c, "/" + c.takeCreated()).DELETE().build();
+        }
+    };
+
+    abstract HttpRequest request(Catalog catalog, ThreadLocalRandom random);
+
+    private static HttpRequest get(Catalog c, String path) {
+        return builder(c, path).GET().build();
+    }
+
+    private static HttpRequest.Builder builder(Catalog c, String path) {
+        return HttpRequest.newBuilder(URI.create(c.items() + path))
+                .timeout(Catalog.TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher body(ThreadLocalRandom r) {
+        int n = r.nextInt(1_000_000);
+        return HttpRequest.BodyPublishers.ofString(Catalog.json(n));
+    }
+}
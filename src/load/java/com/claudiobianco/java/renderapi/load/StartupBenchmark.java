@@ -0,0 +1,190 @@
+package com.claudiobianco.java.renderapi.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+/**
+ * Mede o cold start de cada forma de subir a aplicação: tempo do
+ * {@code exec} da JVM até o primeiro 200 em {@code /api/v1/hello}, e o RSS do
+ * processo nesse momento. Cada variante sobe {@code runs} vezes; o relatório
+ * mostra mediana e mínimo e vai em JSON para {@code target/startup}.
+ *
+ * <pre>
+ * mvn -Paot,load -DskipTests package exec:exec@startup
+ * mvn -Paot,load -DskipTests package exec:exec@startup -Dstartup.args="--runs=10 --jvm-args=-Xmx256m"
+ * </pre>
+ *
+ * Variantes ({@code --variants}): {@code jar} ({@code java -jar} do fat jar),
+ * {@code extracted} (jar extraído com {@code -Djarmode=tools}), {@code cds}
+ * (extraído + arquivo AppCDS de um treino), {@code aot} (extraído +
+ * {@code -Dspring.aot.enabled=true}), {@code cds-aot} (os dois) e
+ * {@code native} (executável do {@code -Pnative native:compile}, em
+ * {@code --native}). As variantes com AOT exigem o jar do perfil {@code aot}.
+ * Outras opções: {@code jar}, {@code runs}, {@code jvm-args}, {@code out}.
+ */
+public final class StartupBenchmark {
+
+    private static final String PROBE = "/api/v1/hello";
+    private static final String AOT_INITIALIZER =
+            "BOOT-INF/classes/com/claudiobianco/java/renderapi/RenderApiApplication__ApplicationContextInitializer.class";
+
+    record Run(double millis, long rssKb) {}
+
+    record Result(String variant, List<String> command, List<Run> runs, double medianMillis, double minMillis, long medianRssKb) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("Opção inválida: " + arg);
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        Path jar = Path.of(options.getOrDefault("jar", "target/renderapi-1.0.0.jar")).toAbsolutePath();
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        List<String> jvmArgs = split(options.getOrDefault("jvm-args", ""));
+        Path out = Path.of(options.getOrDefault("out", "target/startup")).toAbsolutePath();
+        String nativeBinary = options.get("native");
+        boolean aot = hasAot(jar);
+        List<String> variants = split(options.getOrDefault("variants",
+                "jar,extracted,cds" + (aot ? ",aot,cds-aot" : "") + (nativeBinary != null ? ",native" : "")).replace(',', ' '));
+
+        Files.createDirectories(out);
+        Path work = out.resolve("app");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Path extracted = work.resolve(jar.getFileName());
+        if (variants.stream().anyMatch(v -> !v.equals("jar") && !v.equals("native"))) {
+            System.out.println("Extraindo " + jar + " em " + work);
+            exec(List.of(java, "-Djarmode=tools", "-jar", jar.toString(), "extract", "--force", "--destination", work.toString()), out);
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        List<Result> results = new ArrayList<>();
+        for (String variant : variants) {
+            List<String> command = new ArrayList<>();
+            switch (variant) {
+                case "native" -> {
+                    if (nativeBinary == null) throw new IllegalArgumentException("A variante native precisa de --native=<executável>");
+                    command.add(Path.of(nativeBinary).toAbsolutePath().toString());
+                }
+                case "jar", "extracted", "cds", "aot", "cds-aot" -> {
+                    if (variant.contains("aot") && !aot) throw new IllegalArgumentException(jar + " não foi gerado com -Paot");
+                    command.add(java);
+                    command.addAll(jvmArgs);
+                    if (variant.contains("aot")) command.add("-Dspring.aot.enabled=true");
+                    if (variant.startsWith("cds")) command.add("-XX:SharedArchiveFile=" + train(java, jvmArgs, extracted, variant, out));
+                    command.add("-jar");
+                    command.add(variant.equals("jar") ? jar.toString() : extracted.toString());
+                }
+                default -> throw new IllegalArgumentException("Variante desconhecida: " + variant);
+            }
+            List<Run> measured = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                Run run = start(client, command, out.resolve(variant + ".log"));
+                System.out.printf("  %-10s %8.0f ms %8d MB%n", variant, run.millis(), run.rssKb() / 1024);
+                measured.add(run);
+            }
+            double[] millis = measured.stream().mapToDouble(Run::millis).sorted().toArray();
+            long[] rss = measured.stream().mapToLong(Run::rssKb).sorted().toArray();
+            results.add(new Result(variant, command, measured, millis[millis.length / 2], millis[0], rss[rss.length / 2]));
+        }
+
+        System.out.printf("%n  %-10s %14s %12s %14s%n", "variante", "mediana (ms)", "mínimo (ms)", "RSS (MB)");
+        for (Result r : results) {
+            System.out.printf("  %-10s %14.0f %12.0f %14d%n", r.variant(), r.medianMillis(), r.minMillis(), r.medianRssKb() / 1024);
+        }
+        Path report = out.resolve("startup-" + LocalDateTime.now().withNano(0).toString().replace(':', '-') + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(),
+                Map.of("jar", jar.toString(), "java", System.getProperty("java.version"), "results", results));
+        System.out.println("\nRelatório: " + report);
+    }
+
+    /**
+     * Grava o arquivo AppCDS da variante com um treino que sobe o contexto e
+     * sai no refresh ({@code spring.context.exit=onRefresh}), como no Dockerfile.cds.
+     * O arquivo só vale para a mesma JVM, classpath e opções de GC.
+     */
+    private static Path train(String java, List<String> jvmArgs, Path extracted, String variant, Path out) throws Exception {
+        Path archive = out.resolve(variant + ".jsa");
+        List<String> command = new ArrayList<>(List.of(java));
+        command.addAll(jvmArgs);
+        if (variant.contains("aot")) command.add("-Dspring.aot.enabled=true");
+        command.addAll(List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh", "-jar", extracted.toString()));
+        System.out.println("Treinando o arquivo CDS de " + variant);
+        exec(command, out);
+        return archive;
+    }
+
+    private static Run start(HttpClient client, List<String> command, Path log) throws Exception {
+        int port = LoadTest.freePort();
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.port=" + port);
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(withPort).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + PROBE))
+                    .timeout(Duration.ofSeconds(2)).build();
+            long deadline = started + TimeUnit.SECONDS.toNanos(120);
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) throw new IllegalStateException("A aplicação terminou ao subir; ver " + log);
+                try {
+                    if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return new Run((System.nanoTime() - started) / 1e6, rssKb(process.pid()));
+                    }
+                } catch (ConnectException e) {
+                    // porta ainda fechada
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("Sem resposta em " + PROBE + "; ver " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+    }
+
+    /** VmRSS do {@code /proc}; -1 fora do Linux. */
+    private static long rssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        } catch (IOException e) {
+            // sem /proc
+        }
+        return -1;
+    }
+
+    private static boolean hasAot(Path jar) throws IOException {
+        try (JarFile file = new JarFile(jar.toFile())) {
+            return file.getEntry(AOT_INITIALIZER) != null;
+        }
+    }
+
+    private static void exec(List<String> command, Path out) throws Exception {
+        Path log = out.resolve("prepare.log");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        if (process.waitFor() != 0) throw new IllegalStateException("Falhou: " + String.join(" ", command) + "; ver " + log);
+    }
+
+    private static List<String> split(String args) {
+        return args.isBlank() ? List.of() : Arrays.asList(args.trim().split("\\s+"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.claudiobianco.java.renderapi.load;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.claudiobianco.java.renderapi.load.Operation.*;
+
+/** Misturas de operações, com o peso (em %) de cada uma. */
+enum Workload {
+
+    READ_HEAVY(Map.of(GET_ITEM, 80, LIST_PAGE, 15, UPDATE, 5)),
+    WRITE_HEAVY(Map.of(CREATE, 40, UPDATE, 35, DELETE, 15, GET_ITEM, 10)),
+    DEEP_PAGINATION(Map.of(LIST_DEEP, 60, LIST_CURSOR, 40)),
+    SEARCH_HEAVY(Map.of(SEARCH, 70, GET_ITEM, 25, STATS, 5)),
+    MIXED(Map.of(GET_ITEM, 45, LIST_PAGE, 15, SEARCH, 10, STATS, 5, CREATE, 10, UPDATE, 10, DELETE, 5));
+
+    private final Map<Operation, Integer> weights;
+    // uma posição por ponto de peso: sortear é só um índice
+    private final Operation[] table;
+
+    Workload(Map<Operation, Integer> weights) {
+        this.weights = new EnumMap<>(weights);
+        List<Operation> slots = new ArrayList<>();
+        this.weights.forEach((op, weight) -> {
+            for (int i = 0; i < weight; i++) slots.add(op);
+        });
+        this.table = slots.toArray(Operation[]::new);
+    }
+
+    Operation next(ThreadLocalRandom random) {
+        return table[random.nextInt(table.length)];
+    }
+
+    Map<Operation, Integer> weights() {
+        return weights;
+    }
+
+    /** Aceita "read-heavy", "READ_HEAVY" etc. */
+    static Workload parse(String name) {
+        return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -14,7 +14,7 @@ public class HelloController {
 
     @GetMapping("/hello")
     public String hello() {
-        log.info("Rest request received for /api/v1/hello");
+        log.debug("Rest request received for /api/v1/hello");
         return "Hello World!";
     }
 }
\ No newline at end of file
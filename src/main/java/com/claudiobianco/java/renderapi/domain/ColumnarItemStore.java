@@ -0,0 +1,372 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Store em colunas de tipos primitivos, para catálogos de milhões de itens.
+ *
+ * <p>O id é a própria posição: os ids vêm do gerador sequencial do
+ * {@link ItemService}, então as colunas são arrays em blocos de
+ * {@value #CHUNK} linhas alocados conforme os ids crescem. Preço, versão e
+ * timestamps (segundos + nanos, sem perder precisão) ficam em arrays
+ * primitivos; status e categoria viram códigos de um dicionário; nome e
+ * descrição ficam num único {@code byte[]} UTF-8 por item. O
+ * {@link ItemResponse} só é montado na leitura.
+ *
+ * <p>Leituras não pegam lock: cada linha tem um contador de sequência que o
+ * escritor deixa ímpar enquanto altera as colunas, e o leitor repete a leitura
+ * se o contador mudou no meio. Escritas no mesmo id são serializadas por locks
+ * listrados, como no service.
+ */
+@Component
+@ConditionalOnProperty(name = "items.store", havingValue = "columnar")
+public class ColumnarItemStore implements ItemStore {
+
+    static final int CHUNK_BITS = 14;
+    static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MASK = CHUNK - 1;
+    private static final int LOCK_STRIPES = 64;
+
+    private static final byte PRECO_NULL = 1;
+    // timestamps que não voltam idênticos de Instant.toString() vão como texto
+    private static final byte CREATED_RAW = 2;
+    private static final byte UPDATED_RAW = 4;
+    private static final byte PRESENT = 8;
+
+    private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private final LongAdder count = new LongAdder();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final ReentrantLock growLock = new ReentrantLock();
+    private final Dictionary dictionary = new Dictionary();
+
+    public ColumnarItemStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new ReentrantLock();
+    }
+
+    @Override
+    public VersionedItem getVersioned(long id) {
+        Chunk chunk = chunkFor(id);
+        return chunk == null ? null : chunk.read((int) (id & MASK), id);
+    }
+
+    @Override
+    public boolean insert(ItemResponse item, long version) {
+        long id = item.id();
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Chunk chunk = chunkForWrite(id);
+            int row = (int) (id & MASK);
+            if (chunk.present(row)) return false;
+            chunk.write(row, item, version);
+            chunk.live.incrementAndGet();
+            count.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ItemResponse update(long id, UnaryOperator<ItemResponse> fn, long version) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Chunk chunk = chunkFor(id);
+            int row = (int) (id & MASK);
+            if (chunk == null || !chunk.present(row)) return null;
+            ItemResponse updated = fn.apply(chunk.read(row, id).item());
+            chunk.write(row, updated, version);
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ItemResponse remove(long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Chunk chunk = chunkFor(id);
+            int row = (int) (id & MASK);
+            if (chunk == null || !chunk.present(row)) return null;
+            ItemResponse removed = chunk.read(row, id).item();
+            chunk.clear(row);
+            chunk.live.decrementAndGet();
+            count.decrement();
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<ItemResponse> page(long offset, int limit) {
+        if (limit <= 0) return List.of();
+        Chunk[] snapshot = chunks;
+        long skipped = 0;
+        int c = 0;
+        // blocos inteiros são pulados pela contagem de vivos, sem olhar linha a linha
+        while (c < snapshot.length && (snapshot[c] == null || skipped + snapshot[c].live.get() <= offset)) {
+            if (snapshot[c] != null) skipped += snapshot[c].live.get();
+            c++;
+        }
+        List<ItemResponse> slice = new ArrayList<>(limit);
+        for (; c < snapshot.length && slice.size() < limit; c++) {
+            Chunk chunk = snapshot[c];
+            if (chunk == null) continue;
+            for (int row = 0; row < CHUNK && slice.size() < limit; row++) {
+                if (!chunk.present(row)) continue;
+                if (skipped++ < offset) continue;
+                VersionedItem item = chunk.read(row, ((long) c << CHUNK_BITS) | row);
+                if (item != null) slice.add(item.item());
+            }
+        }
+        return slice;
+    }
+
+    @Override
+    public List<ItemResponse> after(long afterId, int limit) {
+        // nada vem depois de MAX_VALUE, e afterId + 1 daria a volta para o início
+        if (limit <= 0 || afterId == Long.MAX_VALUE) return List.of();
+        Chunk[] snapshot = chunks;
+        List<ItemResponse> slice = new ArrayList<>(limit);
+        long start = Math.max(0, afterId + 1);
+        for (long id = start; (id >>> CHUNK_BITS) < snapshot.length && slice.size() < limit; id++) {
+            Chunk chunk = snapshot[(int) (id >>> CHUNK_BITS)];
+            if (chunk == null) {
+                id |= MASK;
+                continue;
+            }
+            int row = (int) (id & MASK);
+            if (!chunk.present(row)) continue;
+            VersionedItem item = chunk.read(row, id);
+            if (item != null) slice.add(item.item());
+        }
+        return slice;
+    }
+
+    @Override
+    public long size() {
+        return Math.max(0, count.sum());
+    }
+
+    private Chunk chunkFor(long id) {
+        if (id < 0) return null;
+        Chunk[] snapshot = chunks;
+        long c = id >>> CHUNK_BITS;
+        return c < snapshot.length ? snapshot[(int) c] : null;
+    }
+
+    private Chunk chunkForWrite(long id) {
+        if (id < 0 || (id >>> CHUNK_BITS) >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("id fora do intervalo do store colunar: " + id);
+        }
+        Chunk chunk = chunkFor(id);
+        if (chunk != null) return chunk;
+        growLock.lock();
+        try {
+            Chunk[] current = chunks;
+            int c = (int) (id >>> CHUNK_BITS);
+            if (c < current.length && current[c] != null) return current[c];
+            Chunk[] grown = c < current.length ? current.clone()
+                    : Arrays.copyOf(current, Math.max(c + 1, current.length + current.length / 2));
+            if (grown[c] == null) grown[c] = new Chunk(dictionary);
+            chunks = grown;
+            return grown[c];
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        return locks[(int) (id & (LOCK_STRIPES - 1))];
+    }
+
+    /** Valores de status/categoria, codificados em int; o código 0 é {@code null}. */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile String[] values = new String[] {null};
+
+        int encode(String value) {
+            if (value == null) return 0;
+            Integer code = codes.get(value);
+            if (code != null) return code;
+            lock.lock();
+            try {
+                code = codes.get(value);
+                if (code != null) return code;
+                String[] grown = Arrays.copyOf(values, values.length + 1);
+                grown[values.length] = value;
+                // publica o valor antes do código: quem achar o código acha o valor
+                values = grown;
+                codes.put(value, grown.length - 1);
+                return grown.length - 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        String decode(int code) {
+            String[] snapshot = values;
+            return code < snapshot.length ? snapshot[code] : null;
+        }
+    }
+
+    private static final class Chunk {
+        private final Dictionary dictionary;
+        final int[] seq = new int[CHUNK];
+        final long[] version = new long[CHUNK];
+        final double[] preco = new double[CHUNK];
+        final long[] createdSeconds = new long[CHUNK];
+        final int[] createdNanos = new int[CHUNK];
+        final long[] updatedSeconds = new long[CHUNK];
+        final int[] updatedNanos = new int[CHUNK];
+        final int[] status = new int[CHUNK];
+        final int[] categoria = new int[CHUNK];
+        final byte[] flags = new byte[CHUNK];
+        final byte[][] text = new byte[CHUNK][];
+        // lido sem lock pelo page(), que tolera a defasagem
+        final AtomicInteger live = new AtomicInteger();
+
+        Chunk(Dictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        /** Leitura sem sincronização: sob o lock do id é exata, fora dele é só uma dica. */
+        boolean present(int row) {
+            return (flags[row] & PRESENT) != 0;
+        }
+
+        void write(int row, ItemResponse item, long v) {
+            // tudo que aloca ou converte fica fora da janela em que os leitores esperam
+            byte f = PRESENT;
+            if (item.preco() == null) f |= PRECO_NULL;
+            Instant created = parse(item.createdAt());
+            Instant updated = parse(item.updatedAt());
+            if (created == null) f |= CREATED_RAW;
+            if (updated == null) f |= UPDATED_RAW;
+            int st = dictionary.encode(item.status());
+            int cat = dictionary.encode(item.categoria());
+            byte[] t = encodeText(item.nome(), item.descricao(),
+                    created == null ? item.createdAt() : null, updated == null ? item.updatedAt() : null);
+
+            int s = (int) SEQ.getOpaque(seq, row);
+            SEQ.setOpaque(seq, row, s + 1);
+            VarHandle.storeStoreFence();
+            version[row] = v;
+            preco[row] = item.preco() == null ? 0 : item.preco();
+            createdSeconds[row] = created == null ? 0 : created.getEpochSecond();
+            createdNanos[row] = created == null ? 0 : created.getNano();
+            updatedSeconds[row] = updated == null ? 0 : updated.getEpochSecond();
+            updatedNanos[row] = updated == null ? 0 : updated.getNano();
+            status[row] = st;
+            categoria[row] = cat;
+            flags[row] = f;
+            text[row] = t;
+
+            SEQ.setRelease(seq, row, s + 2);
+        }
+
+        void clear(int row) {
+            int s = (int) SEQ.getOpaque(seq, row);
+            SEQ.setOpaque(seq, row, s + 1);
+            VarHandle.storeStoreFence();
+            flags[row] = 0;
+            text[row] = null;
+            SEQ.setRelease(seq, row, s + 2);
+        }
+
+        /** Lê a linha de forma consistente; {@code null} se estiver vazia. */
+        VersionedItem read(int row, long id) {
+            while (true) {
+                int s = (int) SEQ.getAcquire(seq, row);
+                if ((s & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                long v = version[row];
+                double p = preco[row];
+                long cs = createdSeconds[row];
+                int cn = createdNanos[row];
+                long us = updatedSeconds[row];
+                int un = updatedNanos[row];
+                int st = status[row];
+                int cat = categoria[row];
+                byte f = flags[row];
+                byte[] t = text[row];
+                VarHandle.loadLoadFence();
+                if ((int) SEQ.getOpaque(seq, row) != s) continue;
+
+                if ((f & PRESENT) == 0) return null;
+                ByteBuffer buf = ByteBuffer.wrap(t);
+                String nome = readString(buf);
+                String descricao = readString(buf);
+                String createdRaw = readString(buf);
+                String updatedRaw = readString(buf);
+                String createdAt = (f & CREATED_RAW) != 0 ? createdRaw : Instant.ofEpochSecond(cs, cn).toString();
+                String updatedAt = (f & UPDATED_RAW) != 0 ? updatedRaw : Instant.ofEpochSecond(us, un).toString();
+                return new VersionedItem(new ItemResponse(id, nome, descricao, dictionary.decode(st),
+                        (f & PRECO_NULL) != 0 ? null : p, dictionary.decode(cat), createdAt, updatedAt), v);
+            }
+        }
+    }
+
+    private static Instant parse(String timestamp) {
+        if (timestamp == null) return null;
+        try {
+            Instant instant = Instant.parse(timestamp);
+            return instant.toString().equals(timestamp) ? instant : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encodeText(String... values) {
+        byte[][] encoded = new byte[values.length][];
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+                size += encoded[i].length;
+            }
+            size += 4;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        for (byte[] value : encoded) {
+            buf.putInt(value == null ? -1 : value.length);
+            if (value != null) buf.put(value);
+        }
+        return buf.array();
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int len = buf.getInt();
+        if (len < 0) return null;
+        String value = new String(buf.array(), buf.position(), len, StandardCharsets.UTF_8);
+        buf.position(buf.position() + len);
+        return value;
+    }
+}
@@ -0,0 +1,75 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Implementação lock-free sobre {@link ConcurrentSkipListMap}: leituras e escritas
+ * não bloqueiam entre si e a iteração já sai ordenada por id, sem cópia nem sort.
+ */
+@Component
+@ConditionalOnProperty(name = "items.store", havingValue = "map", matchIfMissing = true)
+public class ConcurrentItemStore implements ItemStore {
+
+    private final ConcurrentSkipListMap<Long, VersionedItem> items = new ConcurrentSkipListMap<>();
+    // size() do skip list é O(n); o contador é mantido à parte
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    public VersionedItem getVersioned(long id) {
+        return items.get(id);
+    }
+
+    @Override
+    public boolean insert(ItemResponse item, long version) {
+        if (items.putIfAbsent(item.id(), new VersionedItem(item, version)) != null) return false;
+        count.increment();
+        return true;
+    }
+
+    @Override
+    public ItemResponse update(long id, UnaryOperator<ItemResponse> fn, long version) {
+        VersionedItem updated = items.computeIfPresent(id, (k, current) -> new VersionedItem(fn.apply(current.item()), version));
+        return updated == null ? null : updated.item();
+    }
+
+    @Override
+    public ItemResponse remove(long id) {
+        VersionedItem removed = items.remove(id);
+        if (removed == null) return null;
+        count.decrement();
+        return removed.item();
+    }
+
+    @Override
+    public List<ItemResponse> page(long offset, int limit) {
+        if (limit <= 0) return List.of();
+        List<ItemResponse> slice = new ArrayList<>(limit);
+        Iterator<VersionedItem> it = items.values().iterator();
+        for (long skipped = 0; skipped < offset && it.hasNext(); skipped++) it.next();
+        while (slice.size() < limit && it.hasNext()) slice.add(it.next().item());
+        return slice;
+    }
+
+    @Override
+    public List<ItemResponse> after(long afterId, int limit) {
+        if (limit <= 0) return List.of();
+        List<ItemResponse> slice = new ArrayList<>(limit);
+        Iterator<VersionedItem> it = items.tailMap(afterId, false).values().iterator();
+        while (slice.size() < limit && it.hasNext()) slice.add(it.next().item());
+        return slice;
+    }
+
+    @Override
+    public long size() {
+        return Math.max(0, count.sum());
+    }
+}
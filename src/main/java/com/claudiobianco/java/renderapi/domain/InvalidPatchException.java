@@ -0,0 +1,7 @@
+package com.claudiobianco.java.renderapi.domain;
+
+public class InvalidPatchException extends RuntimeException {
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,130 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.GroupStats;
+import com.claudiobianco.java.renderapi.web.dto.ItemStatsResponse;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Contagem, soma, mínimo e máximo de preço por categoria e por status,
+ * mantidos a cada mutação pelo {@link ItemService}.
+ *
+ * <p>Cada grupo guarda os preços num multiconjunto ordenado, então mínimo e
+ * máximo continuam corretos quando o item extremo é removido. A soma é
+ * exata ({@link BigDecimal}) para não acumular erro de arredondamento em
+ * somas e subtrações sucessivas.
+ *
+ * <p>As escritas pegam a parte compartilhada de um {@link ReadWriteLock} e
+ * podem correr em paralelo (cada grupo é alterado atomicamente pelo
+ * {@code compute} do mapa); o {@link #snapshot()} pega a parte exclusiva, então
+ * nunca vê um item que saiu de um grupo e ainda não entrou no outro.
+ */
+final class ItemAggregates {
+
+    // ConcurrentHashMap não aceita chave nula
+    private static final String NONE = "\u0000";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Group> byCategoria = new ConcurrentHashMap<>();
+    private final Map<String, Group> byStatus = new ConcurrentHashMap<>();
+
+    void add(ItemResponse item) {
+        lock.readLock().lock();
+        try {
+            apply(byCategoria, item.categoria(), item.preco(), 1);
+            apply(byStatus, item.status(), item.preco(), 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void remove(ItemResponse item) {
+        lock.readLock().lock();
+        try {
+            apply(byCategoria, item.categoria(), item.preco(), -1);
+            apply(byStatus, item.status(), item.preco(), -1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void replace(ItemResponse previous, ItemResponse current) {
+        boolean samePreco = Objects.equals(previous.preco(), current.preco());
+        boolean sameCategoria = Objects.equals(previous.categoria(), current.categoria());
+        boolean sameStatus = Objects.equals(previous.status(), current.status());
+        if (samePreco && sameCategoria && sameStatus) return;
+        lock.readLock().lock();
+        try {
+            if (!samePreco || !sameCategoria) {
+                apply(byCategoria, previous.categoria(), previous.preco(), -1);
+                apply(byCategoria, current.categoria(), current.preco(), 1);
+            }
+            if (!samePreco || !sameStatus) {
+                apply(byStatus, previous.status(), previous.preco(), -1);
+                apply(byStatus, current.status(), current.preco(), 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Custa O(número de grupos), não O(itens). */
+    ItemStatsResponse snapshot() {
+        lock.writeLock().lock();
+        try {
+            List<GroupStats> categorias = stats(byCategoria);
+            List<GroupStats> status = stats(byStatus);
+            long total = categorias.stream().mapToLong(GroupStats::count).sum();
+            return new ItemStatsResponse(total, categorias, status);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Map<String, Group> groups, String key, Double preco, int delta) {
+        groups.compute(key == null ? NONE : key, (k, group) -> {
+            if (group == null) group = new Group();
+            group.apply(preco, delta);
+            return group.count == 0 ? null : group;
+        });
+    }
+
+    private static List<GroupStats> stats(Map<String, Group> groups) {
+        List<GroupStats> result = new ArrayList<>(groups.size());
+        groups.forEach((key, group) -> result.add(group.stats(NONE.equals(key) ? null : key)));
+        result.sort(Comparator.comparing(GroupStats::value, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    private static final class Group {
+        long count;
+        BigDecimal sum = BigDecimal.ZERO;
+        // preço -> quantos itens do grupo têm esse preço
+        final TreeMap<Double, Integer> precos = new TreeMap<>();
+        long priced;
+
+        void apply(Double preco, int delta) {
+            count += delta;
+            if (preco == null) return;
+            priced += delta;
+            sum = sum.add(BigDecimal.valueOf(preco).multiply(BigDecimal.valueOf(delta)));
+            precos.merge(preco, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+
+        GroupStats stats(String value) {
+            if (priced == 0) return new GroupStats(value, count, 0, 0, null, null, null);
+            double total = sum.doubleValue();
+            return new GroupStats(value, count, priced, total, precos.firstKey(), precos.lastKey(), total / priced);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+/**
+ * Mutação aplicada ao store. {@code previous} é nulo em criações e
+ * {@code current} é nulo em remoções.
+ */
+public record ItemChange(Type type, long id, ItemResponse previous, ItemResponse current) {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+}
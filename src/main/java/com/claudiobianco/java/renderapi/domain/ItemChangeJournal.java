@@ -0,0 +1,21 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import java.util.List;
+
+/**
+ * Grava as mutações do {@link ItemService} antes de elas chegarem ao store
+ * (write-ahead). É chamado com o lock do item adquirido; se lançar exceção, a
+ * mutação não é aplicada nem publicada aos {@link ItemChangeListener}s.
+ */
+@FunctionalInterface
+public interface ItemChangeJournal {
+
+    ItemChangeJournal NONE = change -> {};
+
+    void append(ItemChange change);
+
+    /** Grava várias mudanças de uma vez (ex.: um grupo do lote); se lançar exceção, nenhuma é aplicada. */
+    default void appendAll(List<ItemChange> changes) {
+        for (ItemChange change : changes) append(change);
+    }
+}
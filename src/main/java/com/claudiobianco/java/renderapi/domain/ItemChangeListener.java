@@ -0,0 +1,11 @@
+package com.claudiobianco.java.renderapi.domain;
+
+/**
+ * Recebe as mutações do {@link ItemService}. É chamado com o lock do item
+ * adquirido, então mudanças do mesmo id chegam na ordem em que foram aplicadas.
+ */
+@FunctionalInterface
+public interface ItemChangeListener {
+
+    void onChange(ItemChange change);
+}
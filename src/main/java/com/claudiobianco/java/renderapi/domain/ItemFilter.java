@@ -0,0 +1,30 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+/**
+ * Filtros do GET /api/v1/items. Campos nulos não filtram; a faixa de preço é inclusiva.
+ */
+public record ItemFilter(String categoria, String status, Double precoMin, Double precoMax) {
+
+    public static final ItemFilter NONE = new ItemFilter(null, null, null, null);
+
+    public boolean isEmpty() {
+        return categoria == null && status == null && precoMin == null && precoMax == null;
+    }
+
+    boolean hasPrecoRange() {
+        return precoMin != null || precoMax != null;
+    }
+
+    public boolean matches(ItemResponse item) {
+        if (categoria != null && !categoria.equals(item.categoria())) return false;
+        if (status != null && !status.equals(item.status())) return false;
+        if (hasPrecoRange()) {
+            if (item.preco() == null) return false;
+            if (precoMin != null && item.preco() < precoMin) return false;
+            if (precoMax != null && item.preco() > precoMax) return false;
+        }
+        return true;
+    }
+}
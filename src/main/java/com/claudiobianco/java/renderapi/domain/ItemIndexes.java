@@ -0,0 +1,175 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Índices secundários mantidos pelo {@link ItemService}: hash por categoria,
+ * por status e pelo par categoria + status (cada chave aponta para os ids em
+ * ordem, com a contagem mantida à parte) e um índice ordenado por preço.
+ *
+ * <p>Atualizado sob o lock do item, mas lido sem lock: quem consulta deve
+ * conferir o item no store, já que índice e store podem divergir por instantes.
+ */
+final class ItemIndexes {
+
+    private static final Bucket EMPTY = new Bucket();
+
+    private final Map<String, Bucket> byCategoria = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byStatus = new ConcurrentHashMap<>();
+    // filtros por categoria e status juntos viram uma busca exata, sem interseção
+    private final Map<String, Bucket> byCategoriaStatus = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<PriceKey> byPreco = new ConcurrentSkipListSet<>();
+    private final LongAdder precoCount = new LongAdder();
+
+    void add(ItemResponse item) {
+        add(byCategoria, item.categoria(), item.id());
+        add(byStatus, item.status(), item.id());
+        add(byCategoriaStatus, pair(item.categoria(), item.status()), item.id());
+        if (item.preco() != null) addPreco(item.preco(), item.id());
+    }
+
+    void remove(ItemResponse item) {
+        remove(byCategoria, item.categoria(), item.id());
+        remove(byStatus, item.status(), item.id());
+        remove(byCategoriaStatus, pair(item.categoria(), item.status()), item.id());
+        if (item.preco() != null) removePreco(item.preco(), item.id());
+    }
+
+    /** Atualiza só as entradas cujas chaves mudaram; as demais nunca somem do índice. */
+    void replace(ItemResponse previous, ItemResponse current) {
+        long id = current.id();
+        if (!Objects.equals(previous.categoria(), current.categoria())) {
+            add(byCategoria, current.categoria(), id);
+            remove(byCategoria, previous.categoria(), id);
+        }
+        if (!Objects.equals(previous.status(), current.status())) {
+            add(byStatus, current.status(), id);
+            remove(byStatus, previous.status(), id);
+        }
+        String previousPair = pair(previous.categoria(), previous.status());
+        String currentPair = pair(current.categoria(), current.status());
+        if (!Objects.equals(previousPair, currentPair)) {
+            add(byCategoriaStatus, currentPair, id);
+            remove(byCategoriaStatus, previousPair, id);
+        }
+        if (!Objects.equals(previous.preco(), current.preco())) {
+            if (current.preco() != null) addPreco(current.preco(), id);
+            if (previous.preco() != null) removePreco(previous.preco(), id);
+        }
+    }
+
+    int categoriaKeys() {
+        return byCategoria.size();
+    }
+
+    int statusKeys() {
+        return byStatus.size();
+    }
+
+    long precoEntries() {
+        return precoCount.sum();
+    }
+
+    /**
+     * Página de ids, em ordem crescente, e total de um filtro que um único
+     * bucket responde sozinho (categoria, status ou os dois). O total vem do
+     * contador do bucket e a leitura para no fim da página: o custo é
+     * O(offset + limit), não o tamanho do bucket. {@code null} se o filtro
+     * usa preço ou nenhum índice.
+     */
+    IdPage page(ItemFilter filter, long offset, int limit) {
+        if (filter.hasPrecoRange() || (filter.categoria() == null && filter.status() == null)) return null;
+        Bucket bucket = filter.categoria() == null ? byStatus.getOrDefault(filter.status(), EMPTY)
+                : filter.status() == null ? byCategoria.getOrDefault(filter.categoria(), EMPTY)
+                : byCategoriaStatus.getOrDefault(pair(filter.categoria(), filter.status()), EMPTY);
+        long total = bucket.count.sum();
+        if (limit <= 0 || offset >= total) return new IdPage(total, new long[0]);
+        long[] ids = new long[(int) Math.min(limit, total - offset)];
+        int n = 0;
+        long skipped = 0;
+        for (Long id : bucket.ids) {
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            ids[n++] = id;
+            if (n == ids.length) break;
+        }
+        return new IdPage(total, n == ids.length ? ids : Arrays.copyOf(ids, n));
+    }
+
+    /**
+     * Ids candidatos ao filtro, em ordem crescente, vindos do índice mais
+     * seletivo disponível. {@code null} se o filtro não usa nenhum índice.
+     */
+    PrimitiveIterator.OfLong candidates(ItemFilter filter) {
+        if (filter.categoria() != null || filter.status() != null) {
+            Bucket c = filter.categoria() == null ? null : byCategoria.getOrDefault(filter.categoria(), EMPTY);
+            Bucket s = filter.status() == null ? null : byStatus.getOrDefault(filter.status(), EMPTY);
+            Bucket best = c == null ? s : s == null ? c : s.count.sum() < c.count.sum() ? s : c;
+            return best.ids.stream().mapToLong(Long::longValue).iterator();
+        }
+        if (filter.hasPrecoRange()) {
+            double min = filter.precoMin() == null ? Double.NEGATIVE_INFINITY : filter.precoMin();
+            double max = filter.precoMax() == null ? Double.POSITIVE_INFINITY : filter.precoMax();
+            if (min > max) return Arrays.stream(new long[0]).iterator();
+            NavigableSet<PriceKey> range = byPreco.subSet(
+                    new PriceKey(min, Long.MIN_VALUE), true, new PriceKey(max, Long.MAX_VALUE), true);
+            // o índice de preço não está em ordem de id: ordena só o resultado
+            long[] ids = range.stream().mapToLong(PriceKey::id).toArray();
+            Arrays.sort(ids);
+            return Arrays.stream(ids).iterator();
+        }
+        return null;
+    }
+
+    private void addPreco(double preco, long id) {
+        if (byPreco.add(new PriceKey(preco, id))) precoCount.increment();
+    }
+
+    private void removePreco(double preco, long id) {
+        if (byPreco.remove(new PriceKey(preco, id))) precoCount.decrement();
+    }
+
+    private static String pair(String categoria, String status) {
+        return categoria == null || status == null ? null : categoria + '\u0000' + status;
+    }
+
+    private static void add(Map<String, Bucket> index, String key, long id) {
+        if (key == null) return;
+        Bucket bucket = index.computeIfAbsent(key, k -> new Bucket());
+        if (bucket.ids.add(id)) bucket.count.increment();
+    }
+
+    private static void remove(Map<String, Bucket> index, String key, long id) {
+        if (key == null) return;
+        Bucket bucket = index.get(key);
+        if (bucket != null && bucket.ids.remove(id)) bucket.count.decrement();
+    }
+
+    /** {@code total} pode incluir ids de mutações ainda em andamento; quem lê confere cada item no store. */
+    record IdPage(long total, long[] ids) {}
+
+    private static final class Bucket {
+        final ConcurrentSkipListSet<Long> ids = new ConcurrentSkipListSet<>();
+        // size() do skip list é O(n)
+        final LongAdder count = new LongAdder();
+    }
+
+    private record PriceKey(double preco, long id) implements Comparable<PriceKey> {
+        @Override
+        public int compareTo(PriceKey o) {
+            int c = Double.compare(preco, o.preco);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+    }
+}
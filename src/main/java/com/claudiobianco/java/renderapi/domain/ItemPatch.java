@@ -0,0 +1,59 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Alteração parcial de um item no formato JSON Merge Patch (RFC 7396): campo
+ * ausente fica como está, campo com {@code null} é apagado. Como os itens não
+ * têm objetos aninhados, o merge é só campo a campo.
+ */
+public final class ItemPatch {
+
+    private static final Set<String> TEXT_FIELDS = Set.of("nome", "descricao", "status", "categoria");
+
+    private final Map<String, Object> changes;
+
+    private ItemPatch(Map<String, Object> changes) {
+        this.changes = changes;
+    }
+
+    /** Valida os campos já na entrada, para o patch nunca falhar dentro do lock do item. */
+    public static ItemPatch of(Map<String, Object> changes) {
+        if (changes == null) throw new InvalidPatchException("O patch deve ser um objeto JSON");
+        changes.forEach((field, value) -> {
+            if (field.equals("preco")) {
+                if (value != null && !(value instanceof Number)) {
+                    throw new InvalidPatchException("preco deve ser numérico ou null");
+                }
+            } else if (!TEXT_FIELDS.contains(field)) {
+                throw new InvalidPatchException("Campo desconhecido ou não editável: " + field);
+            } else if (value != null && !(value instanceof String)) {
+                throw new InvalidPatchException(field + " deve ser texto ou null");
+            }
+        });
+        // cópia que aceita valores nulos (Map.copyOf não aceita)
+        return new ItemPatch(new HashMap<>(changes));
+    }
+
+    ItemResponse applyTo(ItemResponse current, String now) {
+        return new ItemResponse(current.id(),
+                text("nome", current.nome()),
+                text("descricao", current.descricao()),
+                text("status", current.status()),
+                changes.containsKey("preco") ? number(changes.get("preco")) : current.preco(),
+                text("categoria", current.categoria()),
+                current.createdAt(), now);
+    }
+
+    private String text(String field, String current) {
+        return changes.containsKey(field) ? (String) changes.get(field) : current;
+    }
+
+    private static Double number(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+}
@@ -1,60 +1,750 @@
 package com.claudiobianco.java.renderapi.domain;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.claudiobianco.java.renderapi.web.dto.BatchOperation;
+import com.claudiobianco.java.renderapi.web.dto.BatchResponse;
+import com.claudiobianco.java.renderapi.web.dto.BatchResult;
+import com.claudiobianco.java.renderapi.web.dto.CursorPage;
 import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
 import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.ItemStatsResponse;
 import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 @Service
-public class ItemService {
+public class ItemService implements MeterBinder {
 
-    private final Map<Long, ItemResponse> store = new HashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(ItemService.class);
+
+    // potência de 2: o lock de um id é escolhido pelos bits baixos
+    private static final int LOCK_STRIPES = 64;
+    private static final int EXPORT_PAGE = 1024;
+    private static final long ANY_VERSION = -1;
+
+    private final ItemStore store;
     private final AtomicLong idGenerator = new AtomicLong(0);
+    // incrementado a cada mutação; o valor vira a versão do item alterado
+    private final AtomicLong modifications = new AtomicLong(0);
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final List<ItemChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile ItemChangeJournal journal = ItemChangeJournal.NONE;
+    private final ItemIndexes indexes = new ItemIndexes();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final ItemAggregates aggregates = new ItemAggregates();
+    // no-op até o Spring chamar bindTo; os timers são criados uma vez e só gravam no caminho quente
+    private volatile Timers timers = new Timers(new CompositeMeterRegistry());
+
+    public ItemService() {
+        this(new ConcurrentItemStore());
+    }
+
+    @Autowired
+    public ItemService(ItemStore store) {
+        this.store = store;
+        for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new ReentrantLock();
+    }
+
+    public void addListener(ItemChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ItemChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Define quem grava as mutações antes de aplicá-las; {@code null} desliga. */
+    public void setJournal(ItemChangeJournal journal) {
+        this.journal = journal == null ? ItemChangeJournal.NONE : journal;
+    }
+
+    /**
+     * Espera as mutações em andamento terminarem: a que já passou pelo
+     * journal está aplicada ao store e publicada quando este método retorna.
+     */
+    public void awaitInFlightWrites() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        timers = new Timers(registry);
+        Gauge.builder("items.store.size", store, ItemStore::size)
+                .description("Itens no store").register(registry);
+        Gauge.builder("items.index.keys", indexes, ItemIndexes::categoriaKeys)
+                .tag("index", "categoria").description("Chaves distintas no índice").register(registry);
+        Gauge.builder("items.index.keys", indexes, ItemIndexes::statusKeys)
+                .tag("index", "status").description("Chaves distintas no índice").register(registry);
+        Gauge.builder("items.index.entries", indexes, ItemIndexes::precoEntries)
+                .tag("index", "preco").description("Entradas no índice de preço").register(registry);
+        Gauge.builder("items.search.terms", searchIndex, SearchIndex::vocabularySize)
+                .description("Termos distintos no índice de busca").register(registry);
+    }
 
     public PagedResponse<ItemResponse> list(int page, int size) {
-        List<ItemResponse> all = new ArrayList<>(store.values());
-        all.sort(Comparator.comparingLong(ItemResponse::id));
-        int from = Math.min(page * size, all.size());
-        int to = Math.min(from + size, all.size());
-        List<ItemResponse> slice = all.subList(from, to);
-        int totalPages = size == 0 ? 0 : (int) Math.ceil((double) all.size() / size);
+        long start = System.nanoTime();
+        try {
+            long total = store.size();
+            List<ItemResponse> slice = store.page((long) page * size, size);
+            int totalPages = size == 0 ? 0 : (int) Math.ceil((double) total / size);
+
+            return new PagedResponse<>(slice, page, size, total, totalPages);
+        } finally {
+            timers.list.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Lista paginada com filtros respondidos pelos índices secundários. Filtros
+     * só por categoria e/ou status custam a página pedida (total pelo contador
+     * do índice); com faixa de preço o custo acompanha o tamanho do índice mais
+     * seletivo, não o total de itens.
+     */
+    public PagedResponse<ItemResponse> list(int page, int size, ItemFilter filter) {
+        long start = System.nanoTime();
+        try {
+            long offset = (long) page * size;
+            int totalPages;
+            ItemIndexes.IdPage exact = indexes.page(filter, offset, size);
+            if (exact != null) {
+                List<ItemResponse> slice = new ArrayList<>(exact.ids().length);
+                for (long id : exact.ids()) {
+                    ItemResponse item = store.get(id);
+                    // o índice pode estar um passo à frente/atrás do store: confere o item
+                    if (item != null && filter.matches(item)) slice.add(item);
+                }
+                totalPages = size == 0 ? 0 : (int) Math.ceil((double) exact.total() / size);
+                return new PagedResponse<>(slice, page, size, exact.total(), totalPages);
+            }
+
+            PrimitiveIterator.OfLong candidates = indexes.candidates(filter);
+            if (candidates == null) return list(page, size);
+
+            List<ItemResponse> slice = new ArrayList<>(Math.max(0, Math.min(size, 1024)));
+            long total = 0;
+            while (candidates.hasNext()) {
+                ItemResponse item = store.get(candidates.nextLong());
+                // o índice pode estar um passo à frente/atrás do store: confere o item
+                if (item == null || !filter.matches(item)) continue;
+                if (total >= offset && slice.size() < size) slice.add(item);
+                total++;
+            }
+            totalPages = size == 0 ? 0 : (int) Math.ceil((double) total / size);
+            return new PagedResponse<>(slice, page, size, total, totalPages);
+        } finally {
+            timers.listFiltered.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Busca textual em nome e descrição: todos os termos precisam casar (por
+     * prefixo, sem acentos) e o resultado vem ordenado por relevância.
+     */
+    public PagedResponse<ItemResponse> search(String query, int page, int size) {
+        long start = System.nanoTime();
+        try {
+            long offset = (long) page * size;
+            // só a página pedida e as anteriores são ordenadas
+            SearchIndex.Hits hits = searchIndex.search(query, store.size(), offset + size);
+            List<ItemResponse> slice = new ArrayList<>(size);
+            for (int i = (int) Math.min(offset, hits.ids().length); i < hits.ids().length; i++) {
+                ItemResponse item = store.get(hits.ids()[i]);
+                if (item != null) slice.add(item);
+            }
+            long total = hits.total();
+            int totalPages = size == 0 ? 0 : (int) Math.ceil((double) total / size);
+            return new PagedResponse<>(slice, page, size, total, totalPages);
+        } finally {
+            timers.search.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Contagem e preço (soma, mínimo, máximo, média) por categoria e por
+     * status. Os agregados são mantidos a cada mutação, então o custo depende
+     * só do número de grupos.
+     */
+    public ItemStatsResponse stats() {
+        long start = System.nanoTime();
+        try {
+            return aggregates.snapshot();
+        } finally {
+            timers.stats.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-        return new PagedResponse<>(slice, page, size, all.size(), totalPages);
+    public CursorPage<ItemResponse> listAfter(long after, int limit) {
+        long start = System.nanoTime();
+        try {
+            int max = Math.max(limit, 0);
+            // um item a mais indica se existe próxima página
+            List<ItemResponse> slice = store.after(after, max == Integer.MAX_VALUE ? max : max + 1);
+            Long nextCursor = null;
+            if (slice.size() > max) {
+                slice = slice.subList(0, max);
+                nextCursor = slice.isEmpty() ? null : slice.get(max - 1).id();
+            }
+            return new CursorPage<>(slice, max, store.size(), nextCursor);
+        } finally {
+            timers.listAfter.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Entrega todos os itens em ordem de id exatamente como estavam no início
+     * da chamada, sem bloquear as escritas que acontecem durante a exportação.
+     * Ver {@link ExportCursor}.
+     *
+     * @return quantidade de itens entregues
+     */
+    public long export(Consumer<ItemResponse> sink) {
+        try (ExportCursor cursor = exportCursor()) {
+            for (List<ItemResponse> page = cursor.next(); page != null; page = cursor.next()) {
+                page.forEach(sink);
+            }
+            return cursor.count();
+        }
+    }
+
+    /**
+     * Mesma exportação de {@link #export(Consumer)}, mas puxada página a página
+     * por quem consome, no ritmo dele. O cursor precisa ser fechado.
+     */
+    public ExportCursor exportCursor() {
+        return new ExportCursor();
+    }
+
+    /**
+     * O store é lido página a página; enquanto isso, um listener guarda a
+     * primeira pré-imagem de cada item ainda não exportado que for alterado.
+     * Ao montar cada página, a pré-imagem (quando existe) substitui o valor
+     * lido. A memória extra é proporcional às escritas concorrentes, não ao
+     * tamanho do catálogo.
+     *
+     * <p>Não é thread-safe: um consumidor por vez.
+     */
+    public final class ExportCursor implements AutoCloseable {
+        private final long start = System.nanoTime();
+        private final PreImages preImages = new PreImages();
+        private final long maxId;
+        private long cursor;
+        private long count;
+        private boolean closed;
+
+        private ExportCursor() {
+            listeners.add(preImages);
+            maxId = idGenerator.get();
+            preImages.maxId = maxId;
+        }
+
+        /** Próxima página (não vazia) em ordem de id, ou {@code null} no fim. */
+        public List<ItemResponse> next() {
+            while (cursor < maxId) {
+                List<ItemResponse> page = store.after(cursor, EXPORT_PAGE);
+                // mutações já aplicadas ao store terminam de notificar antes de seguirmos
+                awaitInFlightWrites();
+                long upTo = page.size() < EXPORT_PAGE ? maxId : Math.min(maxId, page.get(page.size() - 1).id());
+
+                NavigableMap<Long, ItemResponse> changed = preImages.items.subMap(cursor, false, upTo, true);
+                Iterator<ItemResponse> current = page.iterator();
+                Iterator<Long> changedIds = new ArrayList<>(changed.keySet()).iterator();
+                ItemResponse nextCurrent = current.hasNext() ? current.next() : null;
+                Long nextChanged = changedIds.hasNext() ? changedIds.next() : null;
+                List<ItemResponse> out = new ArrayList<>(page.size());
+                while (true) {
+                    if (nextCurrent != null && nextCurrent.id() > upTo) nextCurrent = null;
+                    if (nextCurrent == null && nextChanged == null) break;
+                    long id = nextChanged == null ? nextCurrent.id()
+                            : nextCurrent == null ? nextChanged : Math.min(nextCurrent.id(), nextChanged);
+                    ItemResponse pre = preImages.items.get(id);
+                    ItemResponse item = pre != null ? pre : nextCurrent;
+                    if (item != PreImages.ABSENT) out.add(item);
+                    if (nextCurrent != null && nextCurrent.id() == id) nextCurrent = current.hasNext() ? current.next() : null;
+                    if (nextChanged != null && nextChanged == id) nextChanged = changedIds.hasNext() ? changedIds.next() : null;
+                }
+
+                preImages.exportedUpTo = upTo;
+                changed.clear();
+                cursor = upTo;
+                if (!out.isEmpty()) {
+                    count += out.size();
+                    return out;
+                }
+            }
+            return null;
+        }
+
+        /** Itens entregues até agora. */
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            listeners.remove(preImages);
+            timers.export.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     public ItemResponse get(Long id) {
-        ItemResponse item = store.get(id);
-        if (item == null) throw new ItemNotFoundException(id);
-        return item;
+        long start = System.nanoTime();
+        try {
+            ItemResponse item = store.get(id);
+            if (item == null) throw new ItemNotFoundException(id);
+            return item;
+        } finally {
+            timers.get.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public VersionedItem getVersioned(Long id) {
+        long start = System.nanoTime();
+        try {
+            VersionedItem item = store.getVersioned(id);
+            if (item == null) throw new ItemNotFoundException(id);
+            return item;
+        } finally {
+            timers.get.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Contador de mutações do store inteiro: muda sempre que qualquer item muda. */
+    public long modificationCount() {
+        return modifications.get();
     }
 
     public ItemResponse create(ItemRequest req) {
-        long id = idGenerator.incrementAndGet();
-        String now = Instant.now().toString();
+        long start = System.nanoTime();
+        try {
+            return insert(idGenerator.incrementAndGet(), req, Instant.now().toString());
+        } finally {
+            timers.create.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public ItemResponse update(Long id, ItemRequest req) {
+        return update(id, req, ANY_VERSION);
+    }
+
+    /**
+     * Atualiza só se a versão atual for {@code expectedVersion}; caso contrário
+     * lança {@link VersionConflictException}.
+     */
+    public ItemResponse update(Long id, ItemRequest req, long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            ItemResponse updated = replace(id, req, Instant.now().toString(), expectedVersion);
+            if (updated == null) throw new ItemNotFoundException(id);
+            return updated;
+        } finally {
+            timers.update.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public ItemResponse patch(Long id, ItemPatch patch) {
+        return patch(id, patch, ANY_VERSION);
+    }
+
+    /**
+     * Aplica só os campos do patch sobre a versão atual. Leitura, merge e
+     * escrita acontecem com o lock do item, então dois patches concorrentes em
+     * campos diferentes se somam em vez de um apagar o outro. Com
+     * {@code expectedVersion} diferente de {@link #ANY_VERSION} vale a mesma
+     * regra do update condicional.
+     */
+    public ItemResponse patch(Long id, ItemPatch patch, long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            String now = Instant.now().toString();
+            ItemResponse updated = replace(id, current -> patch.applyTo(current, now), expectedVersion);
+            if (updated == null) throw new ItemNotFoundException(id);
+            return updated;
+        } finally {
+            timers.patch.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void delete(Long id) {
+        long start = System.nanoTime();
+        try {
+            if (remove(id) == null) throw new ItemNotFoundException(id);
+        } finally {
+            timers.delete.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Último id gerado; ids futuros serão sempre maiores. */
+    public long lastId() {
+        return idGenerator.get();
+    }
+
+    /**
+     * Recoloca no store um item já persistido (ex.: recuperação após restart),
+     * sem notificar os listeners, e avança o gerador de ids se necessário.
+     */
+    public void restore(ItemResponse item) {
+        ReentrantLock lock = lockFor(item.id());
+        lock.lock();
+        try {
+            ItemResponse previous = store.get(item.id());
+            long version = modifications.incrementAndGet();
+            if (previous == null) {
+                store.insert(item, version);
+            } else {
+                store.update(item.id(), current -> item, version);
+            }
+            reindex(previous, item);
+            reserveIdsUpTo(item.id());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Contraparte de {@link #restore(ItemResponse)} para remoções. */
+    public void restoreDeleted(long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            ItemResponse removed = store.remove(id);
+            if (removed != null) {
+                modifications.incrementAndGet();
+                reindex(removed, null);
+            }
+            reserveIdsUpTo(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aplica uma mutação vinda do líder da replicação. Como o
+     * {@link #restore(ItemResponse)}, grava o estado recebido e avança o gerador
+     * de ids, mas notifica os listeners: caches e feed de mudanças da réplica
+     * acompanham o que ela serve.
+     */
+    public void replicate(ItemChange change) {
+        ReentrantLock lock = lockFor(change.id());
+        lock.lock();
+        try {
+            reserveIdsUpTo(change.id());
+            ItemResponse previous = store.get(change.id());
+            if (change.type() == ItemChange.Type.DELETED) {
+                if (previous == null) return;
+                commit(new ItemChange(ItemChange.Type.DELETED, change.id(), previous, null));
+            } else {
+                commit(new ItemChange(previous == null ? ItemChange.Type.CREATED : ItemChange.Type.UPDATED,
+                        change.id(), previous, change.current()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Garante que o gerador nunca devolva ids até {@code id}. */
+    public void reserveIdsUpTo(long id) {
+        idGenerator.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Cria vários itens de uma vez: um timestamp e uma reserva de ids para
+     * todo o lote. Os ids seguem a ordem da lista.
+     */
+    public List<ItemResponse> createAll(List<ItemRequest> requests) {
+        long start = System.nanoTime();
+        try {
+            String now = Instant.now().toString();
+            long nextId = idGenerator.addAndGet(requests.size()) - requests.size() + 1;
+            List<ItemResponse> created = new ArrayList<>(requests.size());
+            for (ItemRequest req : requests) created.add(insert(nextId++, req, now));
+            return created;
+        } finally {
+            timers.createAll.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Aplica as operações com um único timestamp para o lote e os ids de
+     * criação reservados de uma vez. Falhas são reportadas por operação e não
+     * interrompem as demais.
+     *
+     * <p>As operações são agrupadas pela faixa de lock do id, e cada faixa é
+     * travada uma vez só, em ordem crescente: o grupo inteiro é validado, vai
+     * ao journal numa única gravação e então é aplicado. Operações do mesmo id
+     * caem na mesma faixa e mantêm a ordem da lista; entre ids diferentes a
+     * ordem de aplicação (e de publicação) segue as faixas.
+     */
+    public BatchResponse applyBatch(List<BatchOperation> operations) {
+        long start = System.nanoTime();
+        try {
+            String now = Instant.now().toString();
+            long creates = operations.stream().filter(o -> "create".equals(o.op())).count();
+            long nextId = idGenerator.addAndGet(creates) - creates + 1;
+
+            BatchResult[] results = new BatchResult[operations.size()];
+            long[] ids = new long[operations.size()];
+            List<List<Integer>> stripes = new ArrayList<>(Collections.nCopies(LOCK_STRIPES, null));
+            for (int i = 0; i < operations.size(); i++) {
+                BatchOperation op = operations.get(i);
+                if ("create".equals(op.op())) {
+                    // o id reservado é consumido mesmo se a operação falhar
+                    ids[i] = nextId++;
+                    if (op.item() == null) results[i] = failure(i, op, null, 400, "item obrigatório");
+                } else if ("update".equals(op.op())) {
+                    if (op.id() == null || op.item() == null) results[i] = failure(i, op, op.id(), 400, "id e item obrigatórios");
+                    else ids[i] = op.id();
+                } else if ("delete".equals(op.op())) {
+                    if (op.id() == null) results[i] = failure(i, op, null, 400, "id obrigatório");
+                    else ids[i] = op.id();
+                } else {
+                    results[i] = failure(i, op, op.id(), 400, "operação inválida: " + op.op());
+                }
+                if (results[i] != null) continue;
+                int stripe = stripe(ids[i]);
+                if (stripes.get(stripe) == null) stripes.set(stripe, new ArrayList<>());
+                stripes.get(stripe).add(i);
+            }
+            for (int stripe = 0; stripe < LOCK_STRIPES; stripe++) {
+                if (stripes.get(stripe) != null) applyGroup(stripe, stripes.get(stripe), operations, ids, now, results);
+            }
+
+            int failed = 0;
+            for (BatchResult result : results) if (result.error() != null) failed++;
+            return new BatchResponse(List.of(results), results.length - failed, failed);
+        } finally {
+            timers.applyBatch.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Aplica as operações válidas de uma faixa de lock, na ordem do lote, com o lock adquirido uma vez. */
+    private void applyGroup(int stripe, List<Integer> group, List<BatchOperation> operations, long[] ids,
+                            String now, BatchResult[] results) {
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            // estado de cada id depois das operações anteriores do grupo, ainda não aplicadas
+            Map<Long, ItemResponse> staged = new HashMap<>();
+            List<ItemChange> changes = new ArrayList<>(group.size());
+            List<Integer> indexes = new ArrayList<>(group.size());
+            for (int i : group) {
+                BatchOperation op = operations.get(i);
+                long id = ids[i];
+                ItemResponse current = staged.containsKey(id) ? staged.get(id) : store.get(id);
+                ItemRequest req = op.item();
+                ItemChange change;
+                if ("create".equals(op.op())) {
+                    change = new ItemChange(ItemChange.Type.CREATED, id, null, new ItemResponse(
+                            id, req.nome(), req.descricao(), req.status(), req.preco(), req.categoria(), now, now));
+                    results[i] = new BatchResult(i, op.op(), id, 201, null);
+                } else if (current == null) {
+                    results[i] = failure(i, op, id, 404, new ItemNotFoundException(id).getMessage());
+                    continue;
+                } else if ("update".equals(op.op())) {
+                    change = new ItemChange(ItemChange.Type.UPDATED, id, current, new ItemResponse(
+                            id, req.nome(), req.descricao(), req.status(), req.preco(), req.categoria(), current.createdAt(), now));
+                    results[i] = new BatchResult(i, op.op(), id, 200, null);
+                } else {
+                    change = new ItemChange(ItemChange.Type.DELETED, id, current, null);
+                    results[i] = new BatchResult(i, op.op(), id, 200, null);
+                }
+                staged.put(id, change.current());
+                changes.add(change);
+                indexes.add(i);
+            }
+            try {
+                journal.appendAll(changes);
+            } catch (RuntimeException e) {
+                // nada do grupo foi aplicado; as outras faixas seguem
+                for (int i : indexes) results[i] = failure(i, operations.get(i), ids[i], 500, e.getMessage());
+                return;
+            }
+            for (ItemChange change : changes) apply(change);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static BatchResult failure(int index, BatchOperation op, Long id, int status, String error) {
+        return new BatchResult(index, op.op(), id, status, error);
+    }
+
+    private ItemResponse insert(long id, ItemRequest req, String now) {
         ItemResponse item = new ItemResponse(id, req.nome(), req.descricao(), req.status(), req.preco(), req.categoria(), now, now);
-        store.put(id, item);
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            commit(new ItemChange(ItemChange.Type.CREATED, id, null, item));
+        } finally {
+            lock.unlock();
+        }
         return item;
     }
 
-    public ItemResponse update(Long id, ItemRequest req) {
-        ItemResponse current = store.get(id);
-        if (current == null) throw new ItemNotFoundException(id);
-        String now = Instant.now().toString();
-        ItemResponse updated = new ItemResponse(
+    private ItemResponse replace(long id, ItemRequest req, String now, long expectedVersion) {
+        return replace(id, current -> new ItemResponse(
                 id, req.nome(), req.descricao(), req.status(), req.preco(), req.categoria(),
                 current.createdAt(), now
-        );
-        store.put(id, updated);
-        return updated;
+        ), expectedVersion);
     }
 
-    public void delete(Long id) {
-        ItemResponse removed = store.remove(id);
-        if (removed == null) throw new ItemNotFoundException(id);
+    private ItemResponse replace(long id, UnaryOperator<ItemResponse> change, long expectedVersion) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            VersionedItem versioned = store.getVersioned(id);
+            if (versioned == null) return null;
+            if (expectedVersion != ANY_VERSION && versioned.version() != expectedVersion) {
+                throw new VersionConflictException(id);
+            }
+            ItemResponse current = versioned.item();
+            ItemResponse updated = change.apply(current);
+            commit(new ItemChange(ItemChange.Type.UPDATED, id, current, updated));
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ItemResponse remove(long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            ItemResponse removed = store.get(id);
+            if (removed == null) return null;
+            commit(new ItemChange(ItemChange.Type.DELETED, id, removed, null));
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Grava no journal e aplica; chamado com o lock do item. */
+    private void commit(ItemChange change) {
+        journal.append(change);
+        apply(change);
+    }
+
+    /** Aplica ao store e aos índices uma mudança que já está no journal, e publica. */
+    private void apply(ItemChange change) {
+        long version = modifications.incrementAndGet();
+        switch (change.type()) {
+            case CREATED -> store.insert(change.current(), version);
+            case UPDATED -> store.update(change.id(), current -> change.current(), version);
+            case DELETED -> store.remove(change.id());
+        }
+        reindex(change.previous(), change.current());
+        publish(change);
+    }
+
+    private void reindex(ItemResponse previous, ItemResponse current) {
+        if (previous == null) {
+            indexes.add(current);
+            searchIndex.add(current);
+            aggregates.add(current);
+        } else if (current == null) {
+            indexes.remove(previous);
+            searchIndex.remove(previous);
+            aggregates.remove(previous);
+        } else {
+            indexes.replace(previous, current);
+            searchIndex.replace(previous, current);
+            aggregates.replace(previous, current);
+        }
+    }
+
+    /**
+     * Notifica os listeners depois que a mutação já está no journal e no store:
+     * a falha de um é registrada e não impede os demais, nem desfaz a mutação.
+     */
+    private void publish(ItemChange change) {
+        for (ItemChangeListener listener : listeners) {
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException e) {
+                log.error("Listener {} falhou ao receber {} do item {}", listener, change.type(), change.id(), e);
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        return locks[stripe(id)];
+    }
+
+    private static int stripe(long id) {
+        return (int) (id & (LOCK_STRIPES - 1));
+    }
+
+    /**
+     * Um timer por operação, com histograma para o Prometheus: os percentis
+     * (p50/p95/p99/p999) saem de {@code histogram_quantile} e podem ser somados
+     * entre instâncias. A faixa começa em 1µs porque a maioria das operações
+     * fica bem abaixo do 1ms padrão.
+     */
+    private static final class Timers {
+        final Timer list, listFiltered, listAfter, search, stats, export, get, create, update, patch, delete, createAll, applyBatch;
+
+        Timers(MeterRegistry registry) {
+            list = timer(registry, "list");
+            listFiltered = timer(registry, "listFiltered");
+            listAfter = timer(registry, "listAfter");
+            search = timer(registry, "search");
+            stats = timer(registry, "stats");
+            export = timer(registry, "export");
+            get = timer(registry, "get");
+            create = timer(registry, "create");
+            update = timer(registry, "update");
+            patch = timer(registry, "patch");
+            delete = timer(registry, "delete");
+            createAll = timer(registry, "createAll");
+            applyBatch = timer(registry, "applyBatch");
+        }
+
+        private static Timer timer(MeterRegistry registry, String method) {
+            return Timer.builder("items.service")
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(1_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry);
+        }
+    }
+
+    /** Primeira pré-imagem de cada item alterado durante um {@link #export}. */
+    private static final class PreImages implements ItemChangeListener {
+        // marca itens que não existiam no início da exportação
+        static final ItemResponse ABSENT = new ItemResponse(null, null, null, null, null, null, null, null);
+
+        final ConcurrentSkipListMap<Long, ItemResponse> items = new ConcurrentSkipListMap<>();
+        volatile long maxId = Long.MAX_VALUE;
+        volatile long exportedUpTo;
+
+        @Override
+        public void onChange(ItemChange change) {
+            long id = change.id();
+            if (id <= exportedUpTo || id > maxId) return;
+            items.putIfAbsent(id, change.previous() == null ? ABSENT : change.previous());
+        }
     }
 }
@@ -0,0 +1,36 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Armazenamento dos itens, ordenado por id e seguro para acesso concorrente.
+ * Cada item guarda a versão atribuída pelo {@link ItemService} na última escrita.
+ */
+public interface ItemStore {
+
+    default ItemResponse get(long id) {
+        VersionedItem v = getVersioned(id);
+        return v == null ? null : v.item();
+    }
+
+    VersionedItem getVersioned(long id);
+
+    /** Insere o item; retorna {@code false} se o id já existir. */
+    boolean insert(ItemResponse item, long version);
+
+    /** Aplica {@code fn} atomicamente ao item atual; retorna {@code null} se o id não existir. */
+    ItemResponse update(long id, UnaryOperator<ItemResponse> fn, long version);
+
+    ItemResponse remove(long id);
+
+    /** Até {@code limit} itens em ordem de id, pulando os {@code offset} primeiros. */
+    List<ItemResponse> page(long offset, int limit);
+
+    /** Até {@code limit} itens com id maior que {@code afterId}, em ordem de id. */
+    List<ItemResponse> after(long afterId, int limit);
+
+    long size();
+}
@@ -0,0 +1,154 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido sobre nome e descrição, mantido incrementalmente pelo
+ * {@link ItemService}. Termos são normalizados (minúsculas, sem acentos) e cada
+ * termo da consulta casa por prefixo com o vocabulário, então "note" encontra
+ * "notebook" e "eletronico" encontra "Eletrônico".
+ *
+ * <p>Postings vazias não são removidas do vocabulário: isso evita corrida entre
+ * remoção e inserção concorrentes do mesmo termo, ao custo de manter termos
+ * que já não aparecem em nenhum item.
+ */
+final class SearchIndex {
+
+    // termos do nome pesam mais que os da descrição no ranking
+    private static final int NOME_WEIGHT = 3;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos", "em", "no", "na",
+            "nos", "nas", "um", "uma", "com", "para", "por", "sem");
+
+    // do pior para o melhor: menor score, e no empate o maior id
+    private static final Comparator<Map.Entry<Long, Double>> WORST_FIRST =
+            Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+
+    /** {@code total} itens casaram a consulta; {@code ids} são os melhores, em ordem. */
+    record Hits(long total, long[] ids) {
+        static final Hits NONE = new Hits(0, new long[0]);
+    }
+
+    private final ConcurrentSkipListMap<String, ConcurrentHashMap<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+
+    void add(ItemResponse item) {
+        termFrequencies(item).forEach((term, tf) ->
+                postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(item.id(), tf));
+    }
+
+    void remove(ItemResponse item) {
+        for (String term : termFrequencies(item).keySet()) {
+            Map<Long, Integer> docs = postings.get(term);
+            if (docs != null) docs.remove(item.id());
+        }
+    }
+
+    void replace(ItemResponse previous, ItemResponse current) {
+        Map<String, Integer> before = termFrequencies(previous);
+        Map<String, Integer> after = termFrequencies(current);
+        after.forEach((term, tf) -> {
+            if (!tf.equals(before.get(term))) postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(current.id(), tf);
+        });
+        for (String term : before.keySet()) {
+            if (!after.containsKey(term)) {
+                Map<Long, Integer> docs = postings.get(term);
+                if (docs != null) docs.remove(previous.id());
+            }
+        }
+    }
+
+    /**
+     * Os {@code limit} ids mais relevantes entre os que contêm todos os termos da
+     * consulta (tf-idf, desempate por id), e quantos casaram ao todo.
+     * {@code totalDocs} entra no cálculo do idf. Só os {@code limit} melhores
+     * são ordenados, num heap desse tamanho; o total é o tamanho da interseção.
+     */
+    Hits search(String query, long totalDocs, long limit) {
+        List<String> terms = analyze(query);
+        if (terms.isEmpty()) return Hits.NONE;
+
+        Map<Long, Double> result = null;
+        for (String term : terms.stream().distinct().toList()) {
+            Map<Long, Double> matches = matches(term, totalDocs);
+            if (result == null) {
+                result = matches;
+            } else {
+                // interseção percorrendo o menor dos dois mapas
+                Map<Long, Double> small = matches.size() < result.size() ? matches : result;
+                Map<Long, Double> large = small == matches ? result : matches;
+                Map<Long, Double> both = new HashMap<>();
+                small.forEach((id, score) -> {
+                    Double other = large.get(id);
+                    if (other != null) both.put(id, score + other);
+                });
+                result = both;
+            }
+            if (result.isEmpty()) return Hits.NONE;
+        }
+
+        int k = (int) Math.min(Math.max(0, limit), result.size());
+        if (k == 0) return new Hits(result.size(), new long[0]);
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(k, WORST_FIRST);
+        for (Map.Entry<Long, Double> e : result.entrySet()) {
+            if (top.size() < k) {
+                top.add(e);
+            } else if (WORST_FIRST.compare(e, top.peek()) > 0) {
+                top.poll();
+                top.add(e);
+            }
+        }
+        long[] ids = new long[k];
+        for (int i = k - 1; i >= 0; i--) ids[i] = top.poll().getKey();
+        return new Hits(result.size(), ids);
+    }
+
+    int vocabularySize() {
+        return postings.size();
+    }
+
+    /** Soma, por item, o tf-idf de todos os termos do vocabulário com o prefixo dado. */
+    private Map<Long, Double> matches(String prefix, long totalDocs) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map.Entry<String, ConcurrentHashMap<Long, Integer>> e : postings.tailMap(prefix).entrySet()) {
+            if (!e.getKey().startsWith(prefix)) break;
+            Map<Long, Integer> docs = e.getValue();
+            if (docs.isEmpty()) continue;
+            double idf = Math.log(1 + (double) Math.max(totalDocs, docs.size()) / docs.size());
+            docs.forEach((id, tf) -> scores.merge(id, tf * idf, Double::sum));
+        }
+        return scores;
+    }
+
+    private static Map<String, Integer> termFrequencies(ItemResponse item) {
+        Map<String, Integer> tf = new HashMap<>();
+        for (String t : analyze(item.nome())) tf.merge(t, NOME_WEIGHT, Integer::sum);
+        for (String t : analyze(item.descricao())) tf.merge(t, 1, Integer::sum);
+        return tf;
+    }
+
+    static List<String> analyze(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        for (String t : SEPARATORS.split(folded)) {
+            if (!t.isEmpty() && !STOPWORDS.contains(t)) terms.add(t);
+        }
+        return terms;
+    }
+}
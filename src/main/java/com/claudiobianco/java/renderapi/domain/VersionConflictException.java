@@ -0,0 +1,7 @@
+package com.claudiobianco.java.renderapi.domain;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(Long id) {
+        super("Item com id=" + id + " foi alterado por outra requisição");
+    }
+}
@@ -0,0 +1,9 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+/**
+ * Item com a versão da sua última mutação. Versões vêm do contador global de
+ * modificações do {@link ItemService}, então só crescem.
+ */
+public record VersionedItem(ItemResponse item, long version) {}
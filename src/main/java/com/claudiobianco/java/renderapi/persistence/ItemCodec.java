@@ -0,0 +1,105 @@
+package com.claudiobianco.java.renderapi.persistence;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Formato binário compartilhado por WAL, snapshots e replicação:
+ * {@code [int tamanho][int crc32][byte tipo][long id][campos...]}.
+ * Remoções não carregam campos.
+ */
+public final class ItemCodec {
+
+    static final int HEADER_BYTES = 8;
+
+    private static final ItemChange.Type[] TYPES = ItemChange.Type.values();
+
+    private ItemCodec() {}
+
+    public static byte[] encode(ItemChange change) {
+        return encode(change.type(), change.id(), change.current());
+    }
+
+    public static byte[] encode(ItemChange.Type type, long id, ItemResponse item) {
+        byte[][] strings = item == null ? new byte[0][] : new byte[][] {
+                utf8(item.nome()), utf8(item.descricao()), utf8(item.status()),
+                utf8(item.categoria()), utf8(item.createdAt()), utf8(item.updatedAt())
+        };
+        int payload = 1 + 8;
+        if (item != null) {
+            payload += 1 + 8;
+            for (byte[] s : strings) payload += 4 + (s == null ? 0 : s.length);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + payload);
+        buf.position(HEADER_BYTES);
+        buf.put((byte) type.ordinal());
+        buf.putLong(id);
+        if (item != null) {
+            buf.put((byte) (item.preco() == null ? 0 : 1));
+            buf.putDouble(item.preco() == null ? 0 : item.preco());
+            for (byte[] s : strings) {
+                buf.putInt(s == null ? -1 : s.length);
+                if (s != null) buf.put(s);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), HEADER_BYTES, payload);
+        buf.putInt(0, payload);
+        buf.putInt(4, (int) crc.getValue());
+        return buf.array();
+    }
+
+    /**
+     * Lê o payload posicionado em {@code buf} (após o cabeçalho), já validado.
+     */
+    static ItemChange decode(ByteBuffer buf) {
+        ItemChange.Type type = TYPES[buf.get()];
+        long id = buf.getLong();
+        if (type == ItemChange.Type.DELETED) return new ItemChange(type, id, null, null);
+
+        boolean hasPreco = buf.get() == 1;
+        double preco = buf.getDouble();
+        String nome = string(buf), descricao = string(buf), status = string(buf);
+        String categoria = string(buf), createdAt = string(buf), updatedAt = string(buf);
+        ItemResponse item = new ItemResponse(id, nome, descricao, status, hasPreco ? preco : null,
+                categoria, createdAt, updatedAt);
+        return new ItemChange(type, id, null, item);
+    }
+
+    /** Decodifica um registro completo (cabeçalho incluído), conferindo tamanho e checksum. */
+    public static ItemChange decode(byte[] record) throws IOException {
+        if (record.length < HEADER_BYTES) throw new IOException("Registro truncado");
+        ByteBuffer buf = ByteBuffer.wrap(record);
+        int length = buf.getInt();
+        int crc = buf.getInt();
+        if (length != record.length - HEADER_BYTES) throw new IOException("Tamanho de registro inválido: " + length);
+        ByteBuffer payload = buf.slice();
+        if (!checksumMatches(payload, crc)) throw new IOException("Checksum inválido");
+        return decode(payload);
+    }
+
+    static boolean checksumMatches(ByteBuffer payload, int expected) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue() == expected;
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buf) {
+        int len = buf.getInt();
+        if (len < 0) return null;
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+        buf.position(buf.position() + len);
+        return s;
+    }
+}
@@ -0,0 +1,250 @@
+package com.claudiobianco.java.renderapi.persistence;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+import com.claudiobianco.java.renderapi.domain.ItemChangeJournal;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.CursorPage;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Persistência opcional do {@link ItemService}: toda mutação vai para o WAL
+ * antes de ser aplicada ao store (se a gravação falhar, a mutação não
+ * acontece) e, periodicamente, um snapshot binário do store permite descartar
+ * os segmentos antigos. No startup o snapshot mais recente é carregado e o WAL
+ * a partir dele é reaplicado.
+ *
+ * <p>Com {@code fsync=always} a escrita espera o fsync segurando o lock do
+ * item, porque a próxima escrita do mesmo item precisa partir do estado já
+ * gravado; escritas de outras faixas de lock seguem em paralelo e dividem o
+ * mesmo fsync (group commit do {@link WriteAheadLog}).
+ *
+ * <p>O snapshot é feito sem parar as escritas: o WAL troca de segmento antes
+ * da leitura do store e espera as mutações já gravadas no segmento antigo
+ * chegarem ao store, então tudo o que o snapshot possa ter perdido está no
+ * segmento novo. Como os registros carregam o estado completo do item,
+ * reaplicá-los sobre o snapshot é idempotente.
+ */
+@Component
+@ConditionalOnProperty(name = "items.persistence.enabled", havingValue = "true")
+@EnableConfigurationProperties(PersistenceProperties.class)
+public class ItemJournal implements ItemChangeJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemJournal.class);
+
+    private static final long SNAPSHOT_MAGIC = 0x4954454d53534e50L; // "ITEMSSNP"
+    private static final int SNAPSHOT_PAGE = 4096;
+    private static final int SNAPSHOT_BUFFER_BYTES = 1 << 20;
+
+    private final ItemService service;
+    private final PersistenceProperties props;
+    private final LongAdder recordsSinceSnapshot = new LongAdder();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private WriteAheadLog wal;
+    private ScheduledExecutorService scheduler;
+
+    public ItemJournal(ItemService service, PersistenceProperties props) {
+        this.service = service;
+        this.props = props;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(props.dir());
+        long started = System.nanoTime();
+        long lastGeneration = recover();
+        log.info("Store recuperado de {} em {} ms - {} itens, último id={}", props.dir(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                service.list(0, 0).totalItems(), service.lastId());
+
+        wal = new WriteAheadLog(props.dir(), lastGeneration + 1, props.fsync(), props.fsyncInterval());
+        service.setJournal(this);
+
+        long every = props.snapshotInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "items-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (scheduler != null) scheduler.shutdownNow();
+        service.setJournal(null);
+        if (wal != null) wal.close();
+    }
+
+    @Override
+    public void append(ItemChange change) {
+        wal.append(ItemCodec.encode(change));
+        recordsSinceSnapshot.increment();
+    }
+
+    @Override
+    public void appendAll(List<ItemChange> changes) {
+        List<byte[]> records = new ArrayList<>(changes.size());
+        for (ItemChange change : changes) records.add(ItemCodec.encode(change));
+        wal.appendAll(records);
+        recordsSinceSnapshot.add(records.size());
+    }
+
+    /** Grava um snapshot e descarta os segmentos do WAL que ele torna desnecessários. */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long generation = wal.roll();
+            // registros do segmento antigo cuja mutação ainda não chegou ao store
+            service.awaitInFlightWrites();
+            recordsSinceSnapshot.reset();
+            Path target = snapshotPath(generation);
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            long count = writeSnapshot(tmp);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (long gen : generations("wal-")) if (gen < generation) Files.deleteIfExists(WriteAheadLog.segment(props.dir(), gen));
+            for (long gen : generations("snapshot-")) if (gen < generation) Files.deleteIfExists(snapshotPath(gen));
+            log.info("Snapshot {} gravado com {} itens", target.getFileName(), count);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void scheduledSnapshot() {
+        if (recordsSinceSnapshot.sum() == 0) return;
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("Falha ao gravar snapshot; o WAL continua íntegro", e);
+        }
+    }
+
+    /** Carrega snapshot + WAL e retorna a maior geração encontrada no diretório. */
+    private long recover() throws IOException {
+        List<Long> snapshots = generations("snapshot-");
+        List<Long> segments = generations("wal-");
+        long base = 0;
+        if (!snapshots.isEmpty()) {
+            base = snapshots.get(snapshots.size() - 1);
+            loadSnapshot(snapshotPath(base));
+        }
+        for (long gen : segments) if (gen >= base) replay(WriteAheadLog.segment(props.dir(), gen));
+
+        long last = base;
+        if (!segments.isEmpty()) last = Math.max(last, segments.get(segments.size() - 1));
+        return last;
+    }
+
+    private long writeSnapshot(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_BYTES);
+            buf.putLong(SNAPSHOT_MAGIC).putLong(service.lastId()).putLong(0);
+
+            long count = 0;
+            long cursor = 0;
+            CursorPage<ItemResponse> page;
+            do {
+                page = service.listAfter(cursor, SNAPSHOT_PAGE);
+                for (ItemResponse item : page.items()) {
+                    byte[] record = ItemCodec.encode(ItemChange.Type.CREATED, item.id(), item);
+                    if (buf.remaining() < record.length) drain(ch, buf);
+                    if (record.length > buf.capacity()) {
+                        ch.write(ByteBuffer.wrap(record));
+                    } else {
+                        buf.put(record);
+                    }
+                    count++;
+                }
+                if (page.nextCursor() != null) cursor = page.nextCursor();
+            } while (page.nextCursor() != null);
+            drain(ch, buf);
+
+            ByteBuffer footer = ByteBuffer.allocate(8).putLong(0, count);
+            ch.write(footer, 16);
+            ch.force(true);
+            return count;
+        }
+    }
+
+    private void loadSnapshot(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            RecordReader reader = new RecordReader(ch);
+            Long magic = reader.nextLong();
+            Long lastId = reader.nextLong();
+            Long count = reader.nextLong();
+            if (magic == null || magic != SNAPSHOT_MAGIC || lastId == null || count == null) {
+                throw new IOException("Snapshot inválido: " + file);
+            }
+            long loaded = 0;
+            ItemChange change;
+            while (loaded < count && (change = reader.next()) != null) {
+                service.restore(change.current());
+                loaded++;
+            }
+            if (loaded != count) throw new IOException("Snapshot truncado: " + file + " (" + loaded + "/" + count + ")");
+            service.reserveIdsUpTo(lastId);
+        }
+    }
+
+    private void replay(Path segment) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            RecordReader reader = new RecordReader(ch);
+            ItemChange change;
+            while ((change = reader.next()) != null) {
+                if (change.type() == ItemChange.Type.DELETED) service.restoreDeleted(change.id());
+                else service.restore(change.current());
+            }
+            if (reader.validBytes() < ch.size()) {
+                // escrita interrompida no meio de um registro (crash): descarta a cauda
+                log.warn("Descartando {} bytes inválidos no fim de {}", ch.size() - reader.validBytes(), segment.getFileName());
+                ch.truncate(reader.validBytes());
+            }
+        }
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    private Path snapshotPath(long generation) {
+        return props.dir().resolve(String.format("snapshot-%016d.bin", generation));
+    }
+
+    private List<Long> generations(String prefix) throws IOException {
+        String suffix = prefix.equals("wal-") ? ".log" : ".bin";
+        try (Stream<Path> files = Files.list(props.dir())) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(prefix) && n.endsWith(suffix))
+                    .map(n -> Long.parseLong(n.substring(prefix.length(), n.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.claudiobianco.java.renderapi.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "items.persistence")
+public record PersistenceProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data") Path dir,
+        @DefaultValue("interval") FsyncPolicy fsync,
+        @DefaultValue("100ms") Duration fsyncInterval,
+        @DefaultValue("5m") Duration snapshotInterval
+) {
+
+    public enum FsyncPolicy {
+        /** Cada escrita espera o fsync do grupo em que entrou. */
+        ALWAYS,
+        /** O writer faz fsync no máximo a cada {@code fsync-interval}. */
+        INTERVAL,
+        /** Só o sistema operacional decide quando ir ao disco. */
+        NEVER
+    }
+}
@@ -0,0 +1,72 @@
+package com.claudiobianco.java.renderapi.persistence;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Lê registros do {@link ItemCodec} em sequência. Um registro truncado ou com
+ * checksum inválido encerra a leitura; {@link #validBytes()} indica até onde
+ * o arquivo está íntegro.
+ */
+final class RecordReader {
+
+    private static final int BUFFER_BYTES = 1 << 20;
+    // nenhum registro legítimo chega perto disso; protege contra tamanho corrompido
+    private static final int MAX_RECORD_BYTES = 64 << 20;
+
+    private final FileChannel channel;
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES);
+    private long validBytes;
+    private boolean eof;
+
+    RecordReader(FileChannel channel) {
+        this.channel = channel;
+        buf.flip();
+    }
+
+    /** Próximo registro, ou {@code null} no fim (ou no primeiro registro inválido). */
+    ItemChange next() throws IOException {
+        if (!fill(ItemCodec.HEADER_BYTES)) return null;
+        int length = buf.getInt(buf.position());
+        int crc = buf.getInt(buf.position() + 4);
+        if (length <= 0 || length > MAX_RECORD_BYTES) return null;
+        if (!fill(ItemCodec.HEADER_BYTES + length)) return null;
+
+        ByteBuffer payload = buf.slice(buf.position() + ItemCodec.HEADER_BYTES, length);
+        if (!ItemCodec.checksumMatches(payload, crc)) return null;
+        ItemChange change = ItemCodec.decode(payload);
+        buf.position(buf.position() + ItemCodec.HEADER_BYTES + length);
+        validBytes += ItemCodec.HEADER_BYTES + length;
+        return change;
+    }
+
+    /** Lê um {@code long} cru (cabeçalhos e rodapés de snapshot). */
+    Long nextLong() throws IOException {
+        if (!fill(8)) return null;
+        validBytes += 8;
+        return buf.getLong();
+    }
+
+    long validBytes() {
+        return validBytes;
+    }
+
+    private boolean fill(int needed) throws IOException {
+        if (buf.remaining() >= needed) return true;
+        if (needed > buf.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(needed, buf.capacity() * 2));
+            bigger.put(buf);
+            buf = bigger;
+        } else {
+            buf.compact();
+        }
+        while (buf.position() < needed && !eof) {
+            if (channel.read(buf) < 0) eof = true;
+        }
+        buf.flip();
+        return buf.remaining() >= needed;
+    }
+}
@@ -0,0 +1,221 @@
+package com.claudiobianco.java.renderapi.persistence;
+
+import com.claudiobianco.java.renderapi.persistence.PersistenceProperties.FsyncPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log append-only em segmentos ({@code wal-<geração>.log}) com group commit:
+ * uma única thread escreve tudo o que chegou desde a última escrita em um
+ * {@code write} vetorizado e, conforme a política, um único fsync.
+ *
+ * <p>Depois de um erro de I/O o log fica indisponível: a thread continua viva
+ * só para completar com erro tudo o que ainda chegar, e quem enfileira confere
+ * a falha de novo depois do {@code add}, para que nenhuma espera fique sem resposta.
+ */
+final class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+    private static final int MAX_GROUP = 4096;
+
+    private final Path dir;
+    private final FsyncPolicy policy;
+    private final long fsyncIntervalNanos;
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private FileChannel channel;
+    private long generation;
+    private long lastForce = System.nanoTime();
+    private boolean dirty;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    WriteAheadLog(Path dir, long generation, FsyncPolicy policy, Duration fsyncInterval) throws IOException {
+        this.dir = dir;
+        this.policy = policy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.generation = generation;
+        this.channel = openSegment(generation);
+        this.writer = new Thread(this::run, "items-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    static Path segment(Path dir, long generation) {
+        return dir.resolve(String.format("wal-%016d.log", generation));
+    }
+
+    /** Enfileira o registro; com {@link FsyncPolicy#ALWAYS} só retorna após o fsync. */
+    void append(byte[] record) {
+        appendAll(List.of(record));
+    }
+
+    /**
+     * Enfileira os registros em sequência; com {@link FsyncPolicy#ALWAYS} espera
+     * um único fsync, o do último, que cobre os anteriores.
+     */
+    void appendAll(List<byte[]> records) {
+        if (failure != null) throw new UncheckedIOException("WAL indisponível", failure);
+        if (closed) throw new IllegalStateException("WAL fechado");
+        int last = records.size() - 1;
+        for (int i = 0; i < last; i++) enqueue(new Entry(records.get(i), null));
+        if (last < 0) return;
+        if (policy == FsyncPolicy.ALWAYS) {
+            await(enqueue(new Entry(records.get(last), new CompletableFuture<>())));
+        } else {
+            enqueue(new Entry(records.get(last), null));
+        }
+    }
+
+    /**
+     * Fecha o segmento atual e passa a escrever em um novo. Tudo o que foi
+     * enfileirado antes da chamada fica no segmento anterior.
+     */
+    long roll() {
+        Entry marker = new Entry(null, new CompletableFuture<>());
+        await(enqueue(marker));
+        return marker.rolledTo;
+    }
+
+    /** Espera tudo o que já foi enfileirado chegar ao disco. */
+    void sync() {
+        await(enqueue(new Entry(new byte[0], new CompletableFuture<>())));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        if (failure == null) sync();
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private Entry enqueue(Entry entry) {
+        queue.add(entry);
+        // o writer pode ter falhado entre a checagem do chamador e o add
+        IOException e = failure;
+        if (e != null && entry.done != null) entry.done.completeExceptionally(e);
+        return entry;
+    }
+
+    private void await(Entry entry) {
+        try {
+            entry.done.join();
+        } catch (CompletionException e) {
+            throw new UncheckedIOException("Falha ao gravar o WAL", (IOException) e.getCause());
+        }
+    }
+
+    private void run() {
+        List<Entry> group = new ArrayList<>(MAX_GROUP);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry first = dirty && policy == FsyncPolicy.INTERVAL
+                        ? queue.poll(fsyncIntervalNanos, TimeUnit.NANOSECONDS)
+                        : queue.take();
+                if (first != null) {
+                    group.add(first);
+                    queue.drainTo(group, MAX_GROUP - 1);
+                }
+            } catch (InterruptedException e) {
+                if (closed) break;
+                continue;
+            }
+            if (failure != null) {
+                fail(group, failure);
+            } else {
+                try {
+                    writeGroup(group);
+                } catch (IOException e) {
+                    log.error("Falha ao gravar o WAL; novas escritas serão rejeitadas", e);
+                    failure = e;
+                    fail(group, e);
+                }
+            }
+            group.clear();
+        }
+    }
+
+    private static void fail(List<Entry> group, IOException e) {
+        for (Entry entry : group) if (entry.done != null) entry.done.completeExceptionally(e);
+    }
+
+    private void writeGroup(List<Entry> group) throws IOException {
+        // marcadores de roll dividem o grupo: o que vem antes fica no segmento atual
+        int from = 0;
+        for (int i = 0; i < group.size(); i++) {
+            Entry entry = group.get(i);
+            if (entry.record == null) {
+                flush(group.subList(from, i), true);
+                channel.close();
+                generation++;
+                channel = openSegment(generation);
+                entry.rolledTo = generation;
+                entry.done.complete(null);
+                from = i + 1;
+            }
+        }
+        flush(group.subList(from, group.size()), false);
+    }
+
+    private void flush(List<Entry> entries, boolean forceNow) throws IOException {
+        if (!entries.isEmpty()) {
+            ByteBuffer[] buffers = new ByteBuffer[entries.size()];
+            long bytes = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.wrap(entries.get(i).record);
+                bytes += buffers[i].remaining();
+            }
+            while (bytes > 0) bytes -= channel.write(buffers);
+        }
+
+        dirty |= !entries.isEmpty();
+        // ALWAYS, sync() e roll() têm alguém esperando: o fsync é obrigatório
+        boolean waited = entries.stream().anyMatch(e -> e.done != null);
+        boolean intervalElapsed = policy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos;
+        if (dirty && (forceNow || waited || intervalElapsed)) {
+            channel.force(false);
+            lastForce = System.nanoTime();
+            dirty = false;
+        }
+        for (Entry entry : entries) if (entry.done != null) entry.done.complete(null);
+    }
+
+    private FileChannel openSegment(long gen) throws IOException {
+        return FileChannel.open(segment(dir, gen),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static final class Entry {
+        final byte[] record;
+        final CompletableFuture<Void> done;
+        long rolledTo;
+
+        Entry(byte[] record, CompletableFuture<Void> done) {
+            this.record = record;
+            this.done = done;
+        }
+    }
+}
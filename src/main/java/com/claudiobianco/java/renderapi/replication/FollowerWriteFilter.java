@@ -0,0 +1,62 @@
+package com.claudiobianco.java.renderapi.replication;
+
+import com.claudiobianco.java.renderapi.web.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Numa réplica a API de itens é só leitura: escritas são redirecionadas ao
+ * líder com 307 (que preserva método e corpo) quando {@code leader-url} está
+ * configurado, ou recusadas com 503 {@code READ_ONLY_REPLICA}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "items.replication.role", havingValue = "follower")
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class FollowerWriteFilter extends OncePerRequestFilter {
+
+    private static final Set<String> WRITES = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final String ITEMS = "/api/v1/items";
+
+    private final String leaderUrl;
+    private final ObjectMapper mapper;
+
+    public FollowerWriteFilter(ReplicationProperties props, ObjectMapper mapper) {
+        String url = props.leaderUrl();
+        this.leaderUrl = url == null || url.isBlank() ? null : url.replaceAll("/+$", "");
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !WRITES.contains(request.getMethod()) || !request.getRequestURI().startsWith(ITEMS);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (leaderUrl != null) {
+            String query = request.getQueryString();
+            response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+            response.setHeader(HttpHeaders.LOCATION, leaderUrl + request.getRequestURI() + (query == null ? "" : "?" + query));
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("READ_ONLY_REPLICA", "Esta instância é uma réplica só de leitura"));
+    }
+}
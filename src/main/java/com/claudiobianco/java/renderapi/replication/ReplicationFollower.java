@@ -0,0 +1,246 @@
+package com.claudiobianco.java.renderapi.replication;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.persistence.ItemCodec;
+import com.claudiobianco.java.renderapi.web.dto.CursorPage;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lado réplica da replicação: conecta no líder, recebe o snapshot quando
+ * precisa e aplica os registros em ordem com {@link ItemService#replicate}.
+ * Reconecta sozinha e, se o líder ainda tiver a sequência dela no backlog,
+ * continua de onde parou.
+ *
+ * <p>A réplica nunca gera ids: as escritas vão para o líder (ver
+ * {@link FollowerWriteFilter}), e o último id do líder chega no snapshot e nos
+ * heartbeats, então o gerador local fica sempre à frente dele.
+ */
+@Component
+@ConditionalOnProperty(name = "items.replication.role", havingValue = "follower")
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationFollower implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private static final int PRUNE_PAGE = 4096;
+
+    private final ItemService service;
+    private final ReplicationProperties props;
+    private final String host;
+    private final int port;
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+
+    // época e sequência só mudam na thread da réplica; as métricas leem
+    private volatile long epoch;
+    private volatile long sequence;
+    private volatile long leaderSequence;
+    private volatile long caughtUpAt = System.nanoTime();
+    private volatile boolean connected;
+    private volatile boolean running = true;
+    private volatile Socket socket;
+    private Thread worker;
+
+    public ReplicationFollower(ItemService service, ReplicationProperties props) {
+        this.service = service;
+        this.props = props;
+        int colon = props.leader().lastIndexOf(':');
+        if (colon < 0) throw new IllegalArgumentException("items.replication.leader deve ser host:porta: " + props.leader());
+        this.host = props.leader().substring(0, colon);
+        this.port = Integer.parseInt(props.leader().substring(colon + 1));
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::run, "replication-follower");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        Socket current = socket;
+        if (current != null) current.close();
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /** Derruba a conexão atual; a réplica reconecta como faria após uma falha de rede. */
+    void disconnect() throws IOException {
+        Socket current = socket;
+        if (current != null) current.close();
+    }
+
+    /** Última sequência do líder aplicada aqui. */
+    public long sequence() {
+        return sequence;
+    }
+
+    /** Registros que o líder já anunciou e a réplica ainda não aplicou. */
+    public long lag() {
+        return Math.max(0, leaderSequence - sequence);
+    }
+
+    /** Há quanto tempo a réplica não está em dia com o líder (0 se está). */
+    public double lagSeconds() {
+        if (connected && lag() == 0) return 0;
+        return (System.nanoTime() - caughtUpAt) / 1e9;
+    }
+
+    public boolean connected() {
+        return connected;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.replication.lag", this, ReplicationFollower::lag)
+                .description("Registros do líder ainda não aplicados").register(registry);
+        Gauge.builder("items.replication.lag.seconds", this, ReplicationFollower::lagSeconds)
+                .description("Tempo desde a última vez que a réplica esteve em dia").register(registry);
+        Gauge.builder("items.replication.connected", this, f -> f.connected ? 1 : 0).register(registry);
+        Gauge.builder("items.replication.sequence", this, ReplicationFollower::sequence).register(registry);
+        FunctionCounter.builder("items.replication.applied", applied, LongAdder::sum).register(registry);
+        FunctionCounter.builder("items.replication.snapshots", snapshots, LongAdder::sum).register(registry);
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(new InetSocketAddress(host, port), (int) props.reconnect().toMillis() * 5);
+                // sem nada do líder por 3 heartbeats a conexão é dada como morta
+                s.setSoTimeout((int) props.heartbeat().toMillis() * 3);
+                s.setTcpNoDelay(true);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                out.writeLong(ReplicationProtocol.MAGIC);
+                out.writeLong(epoch);
+                out.writeLong(sequence);
+                out.flush();
+                connected = true;
+                log.info("Replicação: conectado ao líder {}:{} na sequência {}", host, port, sequence);
+                follow(new DataInputStream(new BufferedInputStream(s.getInputStream(), 64 * 1024)));
+            } catch (IOException e) {
+                if (running) log.warn("Replicação: sem conexão com o líder {}:{} ({}); tentando de novo em {}",
+                        host, port, e.getMessage(), props.reconnect());
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (!running) return;
+            try {
+                Thread.sleep(props.reconnect().toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void follow(DataInputStream in) throws IOException {
+        while (running) {
+            byte frame = in.readByte();
+            switch (frame) {
+                case ReplicationProtocol.RECORD -> {
+                    long seq = in.readLong();
+                    if (seq != sequence + 1) throw new IOException("Sequência fora de ordem: " + seq + " depois de " + sequence);
+                    service.replicate(ItemCodec.decode(readRecord(in)));
+                    sequence = seq;
+                    leaderSequence = Math.max(leaderSequence, seq);
+                    applied.increment();
+                    markCaughtUp();
+                }
+                case ReplicationProtocol.HEARTBEAT -> {
+                    leaderSequence = in.readLong();
+                    service.reserveIdsUpTo(in.readLong());
+                    markCaughtUp();
+                }
+                case ReplicationProtocol.SNAPSHOT_BEGIN -> applySnapshot(in);
+                default -> throw new IOException("Frame desconhecido: " + frame);
+            }
+        }
+    }
+
+    private void markCaughtUp() {
+        if (sequence >= leaderSequence) caughtUpAt = System.nanoTime();
+    }
+
+    /**
+     * Aplica o snapshot sobre o que a réplica já tem: cada item recebido é
+     * gravado, e o que existe aqui com id que o snapshot pulou é removido. A
+     * época só é adotada no fim, então um snapshot interrompido é refeito.
+     */
+    private void applySnapshot(DataInputStream in) throws IOException {
+        long started = System.nanoTime();
+        long snapshotEpoch = in.readLong();
+        long seq = in.readLong();
+        service.reserveIdsUpTo(in.readLong());
+        leaderSequence = Math.max(leaderSequence, seq);
+        long count = 0;
+        long previous = 0;
+        long pruned = 0;
+        byte frame;
+        while ((frame = in.readByte()) == ReplicationProtocol.SNAPSHOT_ITEM) {
+            ItemChange change = ItemCodec.decode(readRecord(in));
+            pruned += prune(previous, change.id());
+            service.replicate(change);
+            previous = change.id();
+            count++;
+        }
+        if (frame != ReplicationProtocol.SNAPSHOT_END) throw new IOException("Frame inesperado no snapshot: " + frame);
+        long expected = in.readLong();
+        if (expected != count) throw new IOException("Snapshot incompleto: " + count + " de " + expected + " itens");
+        pruned += prune(previous, Long.MAX_VALUE);
+        epoch = snapshotEpoch;
+        sequence = seq;
+        snapshots.increment();
+        markCaughtUp();
+        log.info("Replicação: snapshot com {} itens aplicado em {} ms ({} removidos, sequência {})", count,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), pruned, seq);
+    }
+
+    /** Remove os itens locais com id entre {@code after} e {@code before} (exclusivos). */
+    private long prune(long after, long before) {
+        if (before - after <= 1) return 0;
+        long removed = 0;
+        while (true) {
+            CursorPage<ItemResponse> page = service.listAfter(after, PRUNE_PAGE);
+            for (ItemResponse item : page.items()) {
+                if (item.id() >= before) return removed;
+                service.replicate(new ItemChange(ItemChange.Type.DELETED, item.id(), item, null));
+                removed++;
+            }
+            if (page.nextCursor() == null) return removed;
+            after = page.nextCursor();
+        }
+    }
+
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > ReplicationProtocol.MAX_RECORD_BYTES) throw new IOException("Tamanho de registro inválido: " + length);
+        byte[] record = new byte[length];
+        in.readFully(record);
+        return record;
+    }
+}
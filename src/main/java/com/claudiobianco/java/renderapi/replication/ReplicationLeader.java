@@ -0,0 +1,206 @@
+package com.claudiobianco.java.renderapi.replication;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+import com.claudiobianco.java.renderapi.domain.ItemChangeListener;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.persistence.ItemCodec;
+import com.claudiobianco.java.renderapi.web.dto.CursorPage;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lado líder da replicação: cada mutação do {@link ItemService} vira um
+ * registro do {@link ItemCodec} no {@link ReplicationLog}, e uma thread por
+ * réplica conectada envia o que ela ainda não tem (ver {@link ReplicationProtocol}).
+ *
+ * <p>O listener só codifica e põe no anel; quem escreve no socket são os
+ * senders. Uma réplica lenta nunca segura as escritas: se ficar para trás do
+ * backlog, recebe um snapshot e continua dali.
+ */
+@Component
+@ConditionalOnProperty(name = "items.replication.role", havingValue = "leader")
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationLeader implements ItemChangeListener, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationLeader.class);
+
+    private static final int BATCH = 512;
+    private static final int SNAPSHOT_PAGE = 4096;
+
+    private final ItemService service;
+    private final ReplicationProperties props;
+    private final ReplicationLog backlog;
+    // muda a cada start: uma réplica de outra execução do líder sempre recebe snapshot
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final AtomicInteger senderIds = new AtomicInteger();
+
+    private ServerSocket server;
+    private Thread acceptor;
+    private volatile boolean running = true;
+
+    public ReplicationLeader(ItemService service, ReplicationProperties props) {
+        this.service = service;
+        this.props = props;
+        this.backlog = new ReplicationLog(props.backlog());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(props.port()));
+        service.addListener(this);
+        acceptor = new Thread(this::accept, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Replicação: líder aceitando réplicas na porta {}", port());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        running = false;
+        service.removeListener(this);
+        if (server != null) server.close();
+        for (Socket follower : followers) follower.close();
+        backlog.wakeAll();
+    }
+
+    /** Porta em que o líder escuta (útil com {@code port=0}). */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /** Roda com o lock do item, como os demais listeners: só codifica e registra. */
+    @Override
+    public void onChange(ItemChange change) {
+        backlog.append(ItemCodec.encode(change));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.replication.followers", followers, Set::size).register(registry);
+        Gauge.builder("items.replication.sequence", backlog, ReplicationLog::last).register(registry);
+        FunctionCounter.builder("items.replication.sent", sent, LongAdder::sum).register(registry);
+        FunctionCounter.builder("items.replication.snapshots", snapshots, LongAdder::sum).register(registry);
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                Thread sender = new Thread(() -> serve(socket), "replication-sender-" + senderIds.incrementAndGet());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) log.warn("Replicação: falha ao aceitar réplica", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        followers.add(socket);
+        String peer = String.valueOf(socket.getRemoteSocketAddress());
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            if (in.readLong() != ReplicationProtocol.MAGIC) throw new IOException("Handshake inválido");
+            long followerEpoch = in.readLong();
+            long cursor = in.readLong();
+            boolean resumes = followerEpoch == epoch && backlog.after(cursor, 0) != null;
+            log.info("Replicação: réplica {} conectada na sequência {} ({})", peer, cursor, resumes ? "continua do backlog" : "snapshot");
+            if (!resumes) cursor = sendSnapshot(out);
+
+            long heartbeatNanos = props.heartbeat().toNanos();
+            while (running) {
+                List<ReplicationLog.Entry> entries = backlog.after(cursor, BATCH);
+                if (entries == null) {
+                    log.warn("Replicação: réplica {} ficou para trás do backlog; reenviando snapshot", peer);
+                    cursor = sendSnapshot(out);
+                } else if (!entries.isEmpty()) {
+                    for (ReplicationLog.Entry entry : entries) {
+                        out.writeByte(ReplicationProtocol.RECORD);
+                        out.writeLong(entry.seq());
+                        out.writeInt(entry.record().length);
+                        out.write(entry.record());
+                    }
+                    out.flush();
+                    cursor = entries.get(entries.size() - 1).seq();
+                    sent.add(entries.size());
+                } else if (!backlog.await(cursor, heartbeatNanos)) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(backlog.last());
+                    out.writeLong(service.lastId());
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (running) log.info("Replicação: réplica {} desconectada ({})", peer, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /** Envia o store inteiro e devolve a sequência a partir da qual o stream continua. */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        long started = System.nanoTime();
+        // lida antes do store: o que o snapshot não pegar está nos registros depois dela
+        long seq = backlog.last();
+        out.writeByte(ReplicationProtocol.SNAPSHOT_BEGIN);
+        out.writeLong(epoch);
+        out.writeLong(seq);
+        out.writeLong(service.lastId());
+        long count = 0;
+        long cursor = 0;
+        CursorPage<ItemResponse> page;
+        do {
+            page = service.listAfter(cursor, SNAPSHOT_PAGE);
+            for (ItemResponse item : page.items()) {
+                byte[] record = ItemCodec.encode(ItemChange.Type.CREATED, item.id(), item);
+                out.writeByte(ReplicationProtocol.SNAPSHOT_ITEM);
+                out.writeInt(record.length);
+                out.write(record);
+                count++;
+            }
+            if (page.nextCursor() != null) cursor = page.nextCursor();
+        } while (page.nextCursor() != null);
+        out.writeByte(ReplicationProtocol.SNAPSHOT_END);
+        out.writeLong(count);
+        out.flush();
+        snapshots.increment();
+        log.info("Replicação: snapshot de {} itens enviado em {} ms (sequência {})", count,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), seq);
+        return seq;
+    }
+}
@@ -0,0 +1,91 @@
+package com.claudiobianco.java.renderapi.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Backlog do líder: os últimos registros do {@link com.claudiobianco.java.renderapi.persistence.ItemCodec},
+ * numerados em sequência num anel de tamanho fixo. Uma réplica que reconecta
+ * continua daqui se a sequência dela ainda estiver no anel; senão recebe um
+ * snapshot.
+ *
+ * <p>Mesma ideia do log do feed de mudanças: só a escrita pega lock, e a
+ * leitura confere a sequência de cada posição para saber se ela já foi
+ * reaproveitada. Os senders esperam registros novos numa {@link Condition}.
+ */
+final class ReplicationLog {
+
+    record Entry(long seq, byte[] record) {}
+
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private volatile long last;
+
+    ReplicationLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    long append(byte[] record) {
+        lock.lock();
+        try {
+            long seq = last + 1;
+            ring.set((int) (seq & mask), new Entry(seq, record));
+            last = seq;
+            appended.signalAll();
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long last() {
+        return last;
+    }
+
+    /**
+     * Até {@code max} registros depois de {@code after}, em ordem, ou {@code null}
+     * se algum já saiu do anel ou se {@code after} está além do que o log conhece.
+     */
+    List<Entry> after(long after, int max) {
+        long end = last;
+        if (after > end || after < end - ring.length()) return null;
+        long to = Math.min(end, after + max);
+        List<Entry> entries = new ArrayList<>((int) (to - after));
+        for (long seq = after + 1; seq <= to; seq++) {
+            Entry entry = ring.get((int) (seq & mask));
+            if (entry == null || entry.seq() != seq) return null;
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /** Espera até haver registro depois de {@code after}; {@code false} se o tempo acabou antes. */
+    boolean await(long after, long timeoutNanos) throws InterruptedException {
+        if (last != after) return true;
+        lock.lock();
+        try {
+            long nanos = timeoutNanos;
+            while (last == after && nanos > 0) nanos = appended.awaitNanos(nanos);
+            return last != after;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Acorda os senders (ex.: no shutdown). */
+    void wakeAll() {
+        lock.lock();
+        try {
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.claudiobianco.java.renderapi.replication;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "items.replication")
+public record ReplicationProperties(
+        @DefaultValue("none") Role role,
+        @DefaultValue("7070") int port,
+        @DefaultValue("localhost:7070") String leader,
+        String leaderUrl,
+        @DefaultValue("65536") int backlog,
+        @DefaultValue("1s") Duration heartbeat,
+        @DefaultValue("1s") Duration reconnect
+) {
+
+    public enum Role {
+        /** Instância isolada, sem replicação. */
+        NONE,
+        /** Aceita escritas e envia o log de mutações às réplicas em {@code port}. */
+        LEADER,
+        /** Só leitura: aplica o log recebido de {@code leader} e redireciona escritas para {@code leader-url}. */
+        FOLLOWER
+    }
+}
@@ -0,0 +1,34 @@
+package com.claudiobianco.java.renderapi.replication;
+
+/**
+ * Protocolo entre líder e réplica, sobre uma conexão TCP por réplica.
+ *
+ * <p>A réplica abre com {@code [long MAGIC][long época][long última sequência aplicada]}.
+ * Se a época for a do líder e a sequência ainda estiver no backlog, o líder
+ * continua dali; senão manda antes um snapshot. Depois disso só o líder fala:
+ * <pre>
+ * RECORD          [byte][long seq][int tamanho][registro do ItemCodec]
+ * SNAPSHOT_BEGIN  [byte][long época][long seq][long último id]
+ * SNAPSHOT_ITEM   [byte][int tamanho][registro do ItemCodec]
+ * SNAPSHOT_END    [byte][long itens]
+ * HEARTBEAT       [byte][long seq][long último id]
+ * </pre>
+ * Os itens do snapshot vêm em ordem de id, e o snapshot é lido sem parar as
+ * escritas: tudo o que ele possa ter perdido vem nos RECORDs seguintes a
+ * {@code seq}, que carregam o estado completo do item (reaplicar é idempotente).
+ */
+final class ReplicationProtocol {
+
+    static final long MAGIC = 0x4954454d5245504cL; // "ITEMREPL"
+
+    static final byte RECORD = 1;
+    static final byte SNAPSHOT_BEGIN = 2;
+    static final byte SNAPSHOT_ITEM = 3;
+    static final byte SNAPSHOT_END = 4;
+    static final byte HEARTBEAT = 5;
+
+    // nenhum registro legítimo chega perto disso; protege contra tamanho corrompido
+    static final int MAX_RECORD_BYTES = 64 << 20;
+
+    private ReplicationProtocol() {}
+}
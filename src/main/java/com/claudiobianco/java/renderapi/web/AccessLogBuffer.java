@@ -0,0 +1,64 @@
+package com.claudiobianco.java.renderapi.web;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fila circular limitada, sem lock, com vários produtores e um único
+ * consumidor (algoritmo de Vyukov). Cada posição tem um número de sequência
+ * que diz se ela está livre para o produtor da volta atual ou pronta para o
+ * consumidor. {@link #offer} nunca espera: com o buffer cheio devolve
+ * {@code false}.
+ */
+final class AccessLogBuffer<T> {
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // só o consumidor mexe
+    private long head;
+
+    AccessLogBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        items = new Object[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    int capacity() {
+        return items.length;
+    }
+
+    boolean offer(T item) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items[index] = item;
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    T poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) return null;
+        T item = (T) items[index];
+        items[index] = null;
+        sequences.lazySet(index, head + items.length);
+        head++;
+        return item;
+    }
+}
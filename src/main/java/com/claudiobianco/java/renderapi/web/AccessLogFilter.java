@@ -0,0 +1,245 @@
+package com.claudiobianco.java.renderapi.web;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log assíncrono e amostrado. A thread da requisição só sorteia se a
+ * requisição entra na amostra e, no fim, coloca um {@link AccessEvent} no
+ * {@link AccessLogBuffer}; quem formata e escreve no logger {@code access} é
+ * uma thread própria. Com o buffer cheio o evento é descartado e contado,
+ * nunca bloqueando a requisição.
+ *
+ * <p>Requisições que terminam em exceção, timeout ou erro do modo assíncrono
+ * também são registradas, com o status final e {@code error=} indicando o que
+ * houve. Roda antes do {@link AdmissionControlFilter}, então as recusas por
+ * sobrecarga também entram, com {@code error=overloaded}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "items.access-log.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger access = LoggerFactory.getLogger("access");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /** {@code error} é nulo quando a requisição terminou normalmente. */
+    record AccessEvent(String method, String path, int status, long latencyMicros, long bytes, String error) {}
+
+    private record Rule(PathPattern pattern, double rate) {}
+
+    private final double defaultRate;
+    private final List<Rule> rules = new ArrayList<>();
+    private final AccessLogBuffer<AccessEvent> buffer;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AccessLogFilter(AccessLogProperties props) {
+        this.defaultRate = props.sampleRate();
+        props.sampleRates().forEach((pattern, rate) ->
+                rules.add(new Rule(PathPatternParser.defaultInstance.parse(pattern), rate)));
+        this.buffer = new AccessLogBuffer<>(props.bufferSize());
+        this.writer = new Thread(this::drain, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Para o writer depois de escrever o que ainda estiver no buffer. */
+    @PreDestroy
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("items.access_log.events", written, LongAdder::sum)
+                .tag("result", "written").register(registry);
+        FunctionCounter.builder("items.access_log.events", dropped, LongAdder::sum)
+                .tag("result", "dropped").register(registry);
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        double rate = rateFor(path);
+        if (rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        CountingResponse counting = new CountingResponse(response);
+        String error = null;
+        try {
+            chain.doFilter(request, counting);
+        } catch (IOException | ServletException | RuntimeException e) {
+            error = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            if (error == null && request.isAsyncStarted()) {
+                // streaming (ex.: export): registra quando a resposta termina de fato
+                request.getAsyncContext().addListener(new AsyncRecorder(request, counting, start));
+            } else {
+                // a exceção ainda vai virar 500 no container, se a resposta não saiu
+                int status = error != null && !counting.isCommitted() ? 500 : counting.getStatus();
+                if (error == null && request.getAttribute(AdmissionControlFilter.REJECTED) != null) error = "overloaded";
+                record(request, counting, start, status, error);
+            }
+        }
+    }
+
+    private double rateFor(String path) {
+        if (rules.isEmpty()) return defaultRate;
+        PathContainer container = PathContainer.parsePath(path);
+        for (Rule rule : rules) {
+            if (rule.pattern().matches(container)) return rule.rate();
+        }
+        return defaultRate;
+    }
+
+    private void record(HttpServletRequest request, CountingResponse response, long start, int status, String error) {
+        AccessEvent event = new AccessEvent(request.getMethod(), request.getRequestURI(), status,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), response.bytes(), error);
+        if (!buffer.offer(event)) dropped.increment();
+    }
+
+    /**
+     * O container sempre chama {@code onComplete}, também depois de
+     * {@code onTimeout} e {@code onError}: o evento é registrado lá, com o
+     * status final e a marca do que deu errado.
+     */
+    private final class AsyncRecorder implements AsyncListener {
+        private final HttpServletRequest request;
+        private final CountingResponse response;
+        private final long start;
+        private volatile String error;
+
+        AsyncRecorder(HttpServletRequest request, CountingResponse response, long start) {
+            this.request = request;
+            this.response = response;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, response, start, response.getStatus(), error);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            error = "timeout";
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            Throwable cause = event.getThrowable();
+            error = cause == null ? "error" : cause.getClass().getSimpleName();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+
+    private void drain() {
+        while (true) {
+            AccessEvent event = buffer.poll();
+            if (event == null) {
+                if (!running) return;
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            if (event.error() == null) {
+                access.info("method={} path={} status={} latencyMicros={} bytes={}",
+                        event.method(), event.path(), event.status(), event.latencyMicros(), event.bytes());
+            } else {
+                access.info("method={} path={} status={} latencyMicros={} bytes={} error={}",
+                        event.method(), event.path(), event.status(), event.latencyMicros(), event.bytes(), event.error());
+            }
+            written.increment();
+        }
+    }
+
+    /**
+     * Conta os bytes escritos pelo output stream. Respostas escritas via
+     * {@code getWriter()} usam o Content-Length, ou -1 se não houver.
+     */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream stream;
+        private long count;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        long bytes() {
+            if (stream != null) return count;
+            String length = getHeader("Content-Length");
+            return length == null ? -1 : Long.parseLong(length);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override public void write(int b) throws IOException { delegate.write(b); count++; }
+                    @Override public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        count += len;
+                    }
+                    @Override public void flush() throws IOException { delegate.flush(); }
+                    @Override public void close() throws IOException { delegate.close(); }
+                    @Override public boolean isReady() { return delegate.isReady(); }
+                    @Override public void setWriteListener(WriteListener listener) { delegate.setWriteListener(listener); }
+                };
+            }
+            return stream;
+        }
+    }
+}
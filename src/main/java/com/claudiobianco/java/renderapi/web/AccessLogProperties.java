@@ -0,0 +1,25 @@
+package com.claudiobianco.java.renderapi.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * @param sampleRate  fração das requisições registradas (0 a 1)
+ * @param sampleRates taxas por padrão de rota (ex.: {@code /api/v1/items/{id}}), que têm
+ *                    precedência sobre {@code sampleRate}; vale o primeiro padrão que casar
+ * @param bufferSize  capacidade do buffer em eventos, arredondada para potência de 2
+ */
+@ConfigurationProperties(prefix = "items.access-log")
+public record AccessLogProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1.0") double sampleRate,
+        Map<String, Double> sampleRates,
+        @DefaultValue("8192") int bufferSize
+) {
+
+    public AccessLogProperties {
+        sampleRates = sampleRates == null ? Map.of() : sampleRates;
+    }
+}
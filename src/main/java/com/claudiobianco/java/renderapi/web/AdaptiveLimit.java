@@ -0,0 +1,109 @@
+package com.claudiobianco.java.renderapi.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limite de requisições simultâneas que se ajusta pela latência (AIMD).
+ *
+ * <p>As latências são agregadas em janelas de pelo menos {@code window} e
+ * {@code minSamples} amostras. A média de cada janela é comparada com uma linha
+ * de base: o mínimo das médias, que sobe devagar (1% por janela) para
+ * acompanhar mudanças na mistura de requisições. Média acima de
+ * {@code tolerance} vezes a base é fila se formando, e o limite cai
+ * multiplicando por {@code backoff}; senão, se a janela chegou a usar metade do
+ * limite, ele sobe uma unidade.
+ *
+ * <p>Sem lock no caminho da requisição: a admissão é um CAS no contador, e a
+ * janela é fechada pela thread que ganhar o CAS do início dela. Amostras que
+ * chegam durante o fechamento podem cair na janela seguinte.
+ */
+final class AdaptiveLimit {
+
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final int min;
+    private final int max;
+    private final double tolerance;
+    private final double backoff;
+    private final long windowNanos;
+    private final int minSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder latencySum = new LongAdder();
+    private final AtomicLong windowStart;
+    private volatile int limit;
+    // só a thread que fecha a janela escreve
+    private volatile double baselineNanos;
+
+    AdaptiveLimit(int initial, int min, int max, double tolerance, double backoff, long windowNanos, int minSamples, long now) {
+        if (min < 1 || max < min) throw new IllegalArgumentException("Limites inválidos: min=" + min + " max=" + max);
+        this.min = min;
+        this.max = max;
+        this.tolerance = tolerance;
+        this.backoff = backoff;
+        this.windowNanos = windowNanos;
+        this.minSamples = minSamples;
+        this.limit = Math.max(min, Math.min(max, initial));
+        this.windowStart = new AtomicLong(now);
+    }
+
+    /** Ocupa uma vaga se houver menos de {@code limite * share} requisições em andamento. */
+    boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) return false;
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /** Libera a vaga sem amostra (ex.: streaming, cuja duração não diz nada sobre fila). */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /** Libera a vaga e registra a latência da requisição. */
+    void release(long latencyNanos, long now) {
+        inFlight.decrementAndGet();
+        samples.increment();
+        latencySum.add(latencyNanos);
+        long start = windowStart.get();
+        if (now - start < windowNanos || samples.sum() < minSamples) return;
+        if (!windowStart.compareAndSet(start, now)) return;
+        long count = samples.sumThenReset();
+        long sum = latencySum.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (count > 0) adjust(sum / (double) count, peak);
+    }
+
+    private void adjust(double meanNanos, int peak) {
+        double baseline = baselineNanos;
+        baseline = baseline == 0 || meanNanos < baseline ? meanNanos : baseline + (meanNanos - baseline) * BASELINE_DRIFT;
+        baselineNanos = baseline;
+        int current = limit;
+        if (meanNanos > baseline * tolerance) {
+            limit = Math.max(min, (int) (current * backoff));
+        } else if (peak * 2 >= current) {
+            limit = Math.min(max, current + 1);
+        }
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    double baselineSeconds() {
+        return baselineNanos / 1e9;
+    }
+}
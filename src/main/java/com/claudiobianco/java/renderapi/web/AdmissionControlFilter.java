@@ -0,0 +1,156 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controle de admissão da API de itens: no máximo {@link AdaptiveLimit#limit()}
+ * requisições em andamento, com o limite ajustado pela latência observada. O
+ * que passa do limite é recusado na hora, com {@code Retry-After}, em vez de
+ * esperar na fila do Tomcat e levar junto a latência de todo mundo.
+ *
+ * <p>Cada {@link Priority} usa só uma fração do limite, então sob sobrecarga as
+ * listagens, buscas e lotes são recusados antes das leituras por id. O feed de
+ * mudanças (conexão longa) fica de fora; o export ocupa vaga até terminar, mas
+ * não entra na amostra de latência.
+ *
+ * <p>Desligado por padrão (perfil {@code admission}). Roda dentro do
+ * {@link AccessLogFilter}: as recusas aparecem no access log com
+ * {@code error=overloaded}, além de {@code items.admission.rejected}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "items.admission.enabled", havingValue = "true")
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionControlFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final String ITEMS = "/api/v1/items";
+    private static final String CHANGES = ITEMS + "/changes";
+    private static final Set<String> HEAVY = Set.of("search", "export", "import");
+    /** Atributo da requisição recusada, para o access log marcar o motivo. */
+    static final String REJECTED = AdmissionControlFilter.class.getName() + ".rejected";
+
+    enum Priority {
+        /** Leituras pontuais e baratas (item por id, stats, cache): podem usar o limite inteiro. */
+        HIGH(1.0),
+        /** Escritas de um item. */
+        NORMAL(0.8),
+        /** Listagens, busca, export, import e lotes: as primeiras a serem recusadas. */
+        LOW(0.5);
+
+        final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private final AdaptiveLimit limit;
+    private final int rejectStatus;
+    private final String retryAfter;
+    private final byte[] rejectBody;
+    private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+
+    public AdmissionControlFilter(AdmissionProperties props, ObjectMapper mapper) throws IOException {
+        this.limit = new AdaptiveLimit(props.initialLimit(), props.minLimit(), props.maxLimit(), props.tolerance(),
+                props.backoff(), props.window().toNanos(), props.minSamples(), System.nanoTime());
+        this.rejectStatus = props.rejectStatus();
+        this.retryAfter = Long.toString(Math.max(1, (props.retryAfter().toMillis() + 999) / 1000));
+        // a recusa tem que custar quase nada: o corpo é serializado uma vez só
+        this.rejectBody = mapper.writeValueAsBytes(
+                new ErrorResponse("OVERLOADED", "Servidor sobrecarregado; tente novamente em " + retryAfter + "s"));
+        for (Priority priority : Priority.values()) rejected.put(priority, new LongAdder());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.admission.limit", limit, AdaptiveLimit::limit)
+                .description("Requisições simultâneas admitidas").register(registry);
+        Gauge.builder("items.admission.in_flight", limit, AdaptiveLimit::inFlight).register(registry);
+        Gauge.builder("items.admission.baseline", limit, AdaptiveLimit::baselineSeconds)
+                .description("Linha de base da latência média").baseUnit("seconds").register(registry);
+        rejected.forEach((priority, count) -> FunctionCounter.builder("items.admission.rejected", count, LongAdder::sum)
+                .tag("priority", priority.name().toLowerCase(Locale.ROOT)).register(registry));
+    }
+
+    AdaptiveLimit limit() {
+        return limit;
+    }
+
+    long rejected(Priority priority) {
+        return rejected.get(priority).sum();
+    }
+
+    static Priority priority(String method, String path) {
+        String rest = path.substring(ITEMS.length());
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+        if (rest.isEmpty() || rest.equals("/")) return read ? Priority.LOW : Priority.NORMAL;
+        if (rest.charAt(0) == ':' || HEAVY.contains(rest.substring(1))) return Priority.LOW;
+        return read ? Priority.HIGH : Priority.NORMAL;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith(ITEMS) || path.startsWith(CHANGES);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = priority(request.getMethod(), request.getRequestURI());
+        if (!limit.tryAcquire(priority.share)) {
+            rejected.get(priority).increment();
+            request.setAttribute(REJECTED, Boolean.TRUE);
+            response.setStatus(rejectStatus);
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(rejectBody.length);
+            response.getOutputStream().write(rejectBody);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // streaming (ex.: export): a vaga fica ocupada até a resposta terminar
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override public void onComplete(AsyncEvent event) { limit.release(); }
+                    @Override public void onTimeout(AsyncEvent event) {}
+                    @Override public void onError(AsyncEvent event) {}
+                    @Override public void onStartAsync(AsyncEvent event) {}
+                });
+            } else {
+                long now = System.nanoTime();
+                limit.release(now - start, now);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.claudiobianco.java.renderapi.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param initialLimit requisições simultâneas aceitas no startup, antes de haver latência medida
+ * @param minLimit     piso do limite: abaixo disso nada é recusado
+ * @param maxLimit     teto do limite; no Tomcat, acima de {@code server.tomcat.threads.max} não faz diferença
+ * @param tolerance    quanto a latência média da janela pode passar da linha de base antes de o limite cair
+ * @param backoff      fator aplicado ao limite quando a latência passa da tolerância
+ * @param window       duração mínima da janela de amostras
+ * @param minSamples   amostras mínimas para fechar uma janela
+ * @param rejectStatus status das recusas: 503 (sobrecarga, padrão) ou 429
+ * @param retryAfter   valor do {@code Retry-After} das recusas
+ */
+@ConfigurationProperties(prefix = "items.admission")
+public record AdmissionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("32") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("2.0") double tolerance,
+        @DefaultValue("0.9") double backoff,
+        @DefaultValue("100ms") Duration window,
+        @DefaultValue("20") int minSamples,
+        @DefaultValue("503") int rejectStatus,
+        @DefaultValue("1s") Duration retryAfter
+) {}
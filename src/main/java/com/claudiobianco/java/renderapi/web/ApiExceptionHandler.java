@@ -1,6 +1,12 @@
 package com.claudiobianco.java.renderapi.web;
 
 import com.claudiobianco.java.renderapi.domain.ItemNotFoundException;
+import com.claudiobianco.java.renderapi.domain.InvalidPatchException;
+import com.claudiobianco.java.renderapi.domain.VersionConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -8,8 +14,32 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class ApiExceptionHandler {
 
+    private final Counter notFound;
+
+    public ApiExceptionHandler(ObjectProvider<MeterRegistry> registry) {
+        this.notFound = Counter.builder("items.not_found")
+                .description("Respostas 404 por ItemNotFoundException")
+                .register(registry.getIfAvailable(CompositeMeterRegistry::new));
+    }
+
     @ExceptionHandler(ItemNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleNotFound(ItemNotFoundException ex) {
+        notFound.increment();
         return ResponseEntity.status(404).body(new ErrorResponse("ITEM_NOT_FOUND", ex.getMessage()));
     }
+
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidPatch(InvalidPatchException ex) {
+        return ResponseEntity.badRequest().body(new ErrorResponse("INVALID_PATCH", ex.getMessage()));
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleConflict(VersionConflictException ex) {
+        return ResponseEntity.status(412).body(new ErrorResponse("VERSION_CONFLICT", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ImportFailedException.class)
+    public ResponseEntity<ErrorResponse> handleImportFailed(ImportFailedException ex) {
+        return ResponseEntity.status(500).body(new ErrorResponse("IMPORT_FAILED", ex.getMessage()));
+    }
 }
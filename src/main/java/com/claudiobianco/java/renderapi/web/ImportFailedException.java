@@ -0,0 +1,8 @@
+package com.claudiobianco.java.renderapi.web;
+
+/** A importação parou porque a gravação de um bloco falhou; blocos anteriores podem já ter sido gravados. */
+public class ImportFailedException extends RuntimeException {
+    public ImportFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,28 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.BatchRequest;
+import com.claudiobianco.java.renderapi.web.dto.BatchResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Fica fora do {@link ItemController} porque o Spring insere "/" ao combinar
+ * "/api/v1/items" com ":batch".
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1")
+public class ItemBatchController {
+
+    private final ItemService service;
+
+    public ItemBatchController(ItemService service) { this.service = service; }
+
+    @PostMapping("/items:batch")
+    public BatchResponse batch(@RequestBody BatchRequest request) {
+        return service.applyBatch(request.operations() == null ? List.of() : request.operations());
+    }
+}
@@ -0,0 +1,280 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+import com.claudiobianco.java.renderapi.domain.ItemChangeListener;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.ItemChangeEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feed de mudanças em Server-Sent Events. Cada mutação do {@link ItemService}
+ * entra no {@link ItemChangeLog}; cada assinante recebe o que ainda não
+ * recebeu, a partir da sequência pedida (parâmetro {@code since} ou o
+ * {@code Last-Event-ID} de uma reconexão).
+ *
+ * <p>Uma thread de despacho, que nunca escreve em socket, decide quem tem algo
+ * a receber e entrega o envio a um pool de {@code senders} threads com fila
+ * limitada, com no máximo um envio em andamento por assinante. Com a fila
+ * cheia, a volta para e recomeça quando algum envio termina. O log é a fila
+ * limitada de cada assinante: quem ficou mais para trás do que ele guarda
+ * recebe um evento {@code reset} com a sequência atual e deve recarregar o que
+ * estiver exibindo. Um envio parado há mais de {@code send-timeout} (cliente
+ * que não lê e encheu o buffer TCP) desliga o assinante e interrompe a thread
+ * dele, que volta ao pool; um cliente parado prende no máximo uma thread, e
+ * só até o timeout. Assinantes ociosos não ocupam thread: são
+ * só uma conexão assíncrona e um cursor, e a cada {@code heartbeat} recebem um
+ * comentário para que conexões mortas sejam descobertas.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ItemChangeFeed implements ItemChangeListener, MeterBinder {
+
+    // eventos lidos do log por vez; um envio manda no máximo 4 lotes antes de devolver a thread
+    private static final int BATCH = 256;
+    // envios à espera de uma thread; além disso a volta do dispatcher para
+    private static final int QUEUE = 1024;
+
+    private final ItemService service;
+    private final ItemChangeLog log;
+    private final long timeoutMillis;
+    private final long heartbeatNanos;
+    private final long sendTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder stalled = new LongAdder();
+    private final Thread dispatcher;
+    private final ThreadPoolExecutor senders;
+    private volatile boolean running = true;
+
+    public ItemChangeFeed(ItemService service,
+                          @Value("${items.changes.capacity:4096}") int capacity,
+                          @Value("${items.changes.timeout:30m}") Duration timeout,
+                          @Value("${items.changes.heartbeat:15s}") Duration heartbeat,
+                          @Value("${items.changes.send-timeout:10s}") Duration sendTimeout,
+                          @Value("${items.changes.senders:4}") int senders) {
+        this.service = service;
+        this.log = new ItemChangeLog(capacity);
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senders, senders, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE), r -> {
+                    Thread t = new Thread(r, "change-feed-send-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.dispatcher = new Thread(this::dispatch, "change-feed");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        service.addListener(this);
+    }
+
+    @PreDestroy
+    public void close() {
+        service.removeListener(this);
+        running = false;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        senders.shutdownNow();
+        subscribers.forEach(s -> s.emitter.complete());
+        subscribers.clear();
+    }
+
+    /** Roda com o lock do item: só registra (sem lock) e acorda o dispatcher. */
+    @Override
+    public void onChange(ItemChange change) {
+        log.append(change);
+        LockSupport.unpark(dispatcher);
+    }
+
+    /** Assina o feed a partir de {@code since}; nulo significa só as próximas mudanças. */
+    public SseEmitter subscribe(Long since) {
+        return subscribe(new SseEmitter(timeoutMillis), since);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Long since) {
+        Subscriber subscriber = new Subscriber(emitter, since == null ? log.last() : since);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        LockSupport.unpark(dispatcher);
+        return emitter;
+    }
+
+    /** Sequência da última mutação publicada. */
+    public long lastSequence() {
+        return log.last();
+    }
+
+    /** Maior número de threads de envio que o pool chegou a ter. */
+    int senderThreads() {
+        return senders.getLargestPoolSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.changes.subscribers", subscribers, Set::size).register(registry);
+        Gauge.builder("items.changes.sequence", log, ItemChangeLog::last).register(registry);
+        FunctionCounter.builder("items.changes.sent", sent, LongAdder::sum).register(registry);
+        FunctionCounter.builder("items.changes.resets", resets, LongAdder::sum).register(registry);
+        FunctionCounter.builder("items.changes.stalled", stalled, LongAdder::sum)
+                .description("Assinantes desligados por envio parado").register(registry);
+        Gauge.builder("items.changes.sending", senders, ThreadPoolExecutor::getActiveCount)
+                .description("Threads do pool ocupadas com um envio").register(registry);
+    }
+
+    private void dispatch() {
+        long nextHeartbeat = System.nanoTime() + heartbeatNanos;
+        while (running) {
+            long now = System.nanoTime();
+            boolean heartbeat = now - nextHeartbeat >= 0;
+            if (heartbeat) nextHeartbeat = now + heartbeatNanos;
+            long wakeUp = nextHeartbeat;
+            boolean full = false;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.sending.get()) {
+                    // ainda na fila do pool: o timeout conta a partir de quando o envio começa
+                    if (!subscriber.started()) continue;
+                    long deadline = subscriber.sendingSince + sendTimeoutNanos;
+                    if (now - deadline >= 0) {
+                        // a thread do envio encerra a conexão quando o write sair
+                        subscriber.dropped = true;
+                        subscribers.remove(subscriber);
+                        subscriber.interrupt();
+                        stalled.increment();
+                    } else if (deadline - wakeUp < 0) {
+                        wakeUp = deadline;
+                    }
+                } else if (!full && (heartbeat || subscriber.cursor != log.last())
+                        && subscriber.sending.compareAndSet(false, true)) {
+                    // fila cheia: o fim de um envio acorda o dispatcher, que tenta de novo
+                    full = !send(subscriber, heartbeat);
+                }
+            }
+            // um append, subscribe ou fim de envio durante a volta deixa o permit do unpark, e o park retorna na hora
+            LockSupport.parkNanos(Math.max(0, wakeUp - System.nanoTime()));
+        }
+    }
+
+    /** Agenda o envio; {@code false} se o pool não aceitou (fila cheia ou shutdown). */
+    private boolean send(Subscriber subscriber, boolean heartbeat) {
+        try {
+            senders.execute(() -> {
+                subscriber.enter();
+                boolean alive;
+                try {
+                    // desligado enquanto esperava na fila
+                    alive = subscriber.dropped || deliver(subscriber, heartbeat);
+                } finally {
+                    subscriber.leave();
+                }
+                if (subscriber.dropped) {
+                    if (alive) subscriber.emitter.complete();
+                } else if (!alive) {
+                    subscribers.remove(subscriber);
+                }
+                subscriber.sending.set(false);
+                LockSupport.unpark(dispatcher);
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+            return false;
+        }
+    }
+
+    /** Envia o que falta para o assinante; {@code false} se a conexão caiu. */
+    private boolean deliver(Subscriber subscriber, boolean heartbeat) {
+        try {
+            int batches = 0;
+            while (subscriber.cursor != log.last() && !subscriber.dropped) {
+                List<ItemChangeEvent> events = log.after(subscriber.cursor, BATCH);
+                if (events == null) {
+                    long seq = log.last();
+                    subscriber.emitter.send(SseEmitter.event().name("reset").id(Long.toString(seq)).data(Map.of("seq", seq)));
+                    subscriber.cursor = seq;
+                    resets.increment();
+                    return true;
+                }
+                for (ItemChangeEvent event : events) {
+                    subscriber.emitter.send(SseEmitter.event().name("change").id(Long.toString(event.seq())).data(event));
+                    subscriber.cursor = event.seq();
+                }
+                sent.add(events.size());
+                // devolve a thread ao pool de tempos em tempos; o dispatcher agenda o resto
+                if (++batches == 4) return true;
+            }
+            if (heartbeat) subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // conexão caiu ou já foi encerrada: o container avisa o Spring, e
+            // completar o emitter desta thread depois do erro não é permitido.
+            return false;
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        // um envio por vez: só a thread do envio em andamento escreve o cursor
+        final AtomicBoolean sending = new AtomicBoolean();
+        volatile long cursor;
+        volatile long sendingSince;
+        volatile boolean dropped;
+        // thread do envio em andamento, para o dispatcher interromper no timeout
+        private volatile Thread sender;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        synchronized void enter() {
+            sendingSince = System.nanoTime();
+            sender = Thread.currentThread();
+        }
+
+        boolean started() {
+            return sender != null;
+        }
+
+        /** Depois daqui a thread já pode estar com outro assinante: não recebe mais interrupção deste. */
+        synchronized void leave() {
+            sender = null;
+            Thread.interrupted();
+        }
+
+        synchronized void interrupt() {
+            if (sender != null) sender.interrupt();
+        }
+    }
+}
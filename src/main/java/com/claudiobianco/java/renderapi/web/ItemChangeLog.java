@@ -0,0 +1,88 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+import com.claudiobianco.java.renderapi.web.dto.ItemChangeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * As últimas mutações, em anel de tamanho fixo. Cada uma recebe um número de
+ * sequência crescente; quando o anel dá a volta, as mais antigas são
+ * sobrescritas e quem ainda não as leu precisa recomeçar do estado atual.
+ *
+ * <p>Sem lock: a escrita reserva a sequência num contador atômico, grava a
+ * posição e então publica. {@link #last()} só avança sobre posições
+ * contíguas já gravadas, e quem terminar de gravar avança também pelas
+ * posições que outras escritas, mais lentas, deixaram prontas. A leitura
+ * confere a sequência de cada posição: se ela não bate, a posição já foi
+ * reaproveitada e o leitor ficou para trás.
+ */
+final class ItemChangeLog {
+
+    private final AtomicReferenceArray<ItemChangeEvent> ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    ItemChangeLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    long append(ItemChange change) {
+        long seq = claimed.incrementAndGet();
+        ItemChangeEvent event = new ItemChangeEvent(seq, change.type(), change.id(), change.current());
+        int slot = (int) (seq & mask);
+        while (true) {
+            // uma escrita que demorou mais que uma volta do anel não apaga a mais nova
+            ItemChangeEvent current = ring.get(slot);
+            if (current != null && current.seq() > seq) break;
+            if (ring.compareAndSet(slot, current, event)) break;
+        }
+        publish();
+        return seq;
+    }
+
+    private void publish() {
+        while (true) {
+            long last = published.get();
+            long next = last + 1;
+            ItemChangeEvent event = ring.get((int) (next & mask));
+            // posição ainda não gravada: quem a gravar continua daqui
+            if (event == null || event.seq() < next) return;
+            // seq maior: o evento foi sobrescrito, e o leitor que chegar nele recebe reset
+            published.compareAndSet(last, next);
+        }
+    }
+
+    /** Sequência da última mutação registrada; 0 se ainda não houve nenhuma. */
+    long last() {
+        return published.get();
+    }
+
+    int capacity() {
+        return ring.length();
+    }
+
+    /**
+     * Até {@code max} eventos com sequência maior que {@code after}, em ordem.
+     * Devolve {@code null} se algum deles já saiu do anel ou se {@code after}
+     * é de um futuro que este log não conhece (ex.: cliente de antes de um restart).
+     */
+    List<ItemChangeEvent> after(long after, int max) {
+        long end = last();
+        if (after > end || after < end - ring.length()) return null;
+        long to = Math.min(end, after + max);
+        List<ItemChangeEvent> events = new ArrayList<>((int) (to - after));
+        for (long seq = after + 1; seq <= to; seq++) {
+            ItemChangeEvent event = ring.get((int) (seq & mask));
+            if (event == null || event.seq() != seq) return null;
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -1,33 +1,180 @@
 package com.claudiobianco.java.renderapi.web;
 
+import com.claudiobianco.java.renderapi.domain.ItemFilter;
+import com.claudiobianco.java.renderapi.domain.ItemPatch;
 import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.domain.VersionedItem;
+import com.claudiobianco.java.renderapi.web.dto.CacheStats;
+import com.claudiobianco.java.renderapi.web.dto.CursorPage;
+import com.claudiobianco.java.renderapi.web.dto.ImportSummary;
 import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
 import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.ItemStatsResponse;
 import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger; import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/items")
 public class ItemController {
 
     private static final Logger log = LoggerFactory.getLogger(ItemController.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final String MERGE_PATCH = "application/merge-patch+json";
+    static final String CBOR = "application/cbor";
+    static final String SMILE = "application/x-jackson-smile";
+    private static final MediaType CBOR_TYPE = MediaType.parseMediaType(CBOR);
+    private static final MediaType SMILE_TYPE = MediaType.parseMediaType(SMILE);
+
     private final ItemService service;
+    private final ObjectMapper objectMapper;
+    private final ItemImporter importer;
+    private final ItemJsonCache cache;
+    private final ItemChangeFeed changes;
 
-    public ItemController(ItemService service) { this.service = service; }
+    public ItemController(ItemService service, ObjectMapper objectMapper, ItemImporter importer,
+                          ItemJsonCache cache, ItemChangeFeed changes) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        this.importer = importer;
+        this.cache = cache;
+        this.changes = changes;
+    }
 
     @GetMapping
-    public PagedResponse<ItemResponse> list(@RequestParam(defaultValue="0") int page,
-                                            @RequestParam(defaultValue="10") int size) {
-        log.info("Listando itens - page={}, size={}", page, size);
-        return service.list(page, size);
+    public ResponseEntity<?> list(@RequestParam(defaultValue="0") int page,
+                                            @RequestParam(defaultValue="10") int size,
+                                            @RequestParam(required=false) String categoria,
+                                            @RequestParam(required=false) String status,
+                                            @RequestParam(required=false) Double precoMin,
+                                            @RequestParam(required=false) Double precoMax,
+                                            WebRequest request) {
+        // qualquer mutação muda o contador: se o cliente já tem esta versão, nem monta a página
+        if (request.checkNotModified(ItemETags.store(service.modificationCount()))) return null;
+        ItemFilter filter = new ItemFilter(categoria, status, precoMin, precoMax);
+        log.debug("Listando itens - page={}, size={}, filtro={}", page, size, filter);
+        if (!filter.isEmpty()) return ResponseEntity.ok(service.list(page, size, filter));
+        // páginas sem filtro vêm prontas do cache, sem passar pelo Jackson
+        return json(cache.page(page, size, () -> service.list(page, size)));
+    }
+
+    /** A mesma listagem em CBOR ou Smile; o cache só guarda JSON, então aqui o Jackson sempre roda. */
+    @GetMapping(produces = {CBOR, SMILE})
+    public ResponseEntity<PagedResponse<ItemResponse>> listBinary(@RequestParam(defaultValue="0") int page,
+                                                                  @RequestParam(defaultValue="10") int size,
+                                                                  @RequestParam(required=false) String categoria,
+                                                                  @RequestParam(required=false) String status,
+                                                                  @RequestParam(required=false) Double precoMin,
+                                                                  @RequestParam(required=false) Double precoMax,
+                                                                  WebRequest request) {
+        MediaType type = binaryType(request);
+        String etag = ItemETags.variant(ItemETags.store(service.modificationCount()), type.getSubtype());
+        if (request.checkNotModified(etag)) return null;
+        ItemFilter filter = new ItemFilter(categoria, status, precoMin, precoMax);
+        log.debug("Listando itens ({}) - page={}, size={}, filtro={}", type, page, size, filter);
+        return binary(type, filter.isEmpty() ? service.list(page, size) : service.list(page, size, filter));
+    }
+
+    @GetMapping(params = "after")
+    public CursorPage<ItemResponse> listAfter(@RequestParam long after,
+                                              @RequestParam(defaultValue="100") int limit,
+                                              WebRequest request) {
+        if (request.checkNotModified(ItemETags.store(service.modificationCount()))) return null;
+        log.debug("Listando itens - after={}, limit={}", after, limit);
+        return service.listAfter(after, limit);
+    }
+
+    @GetMapping("/search")
+    public PagedResponse<ItemResponse> search(@RequestParam String q,
+                                              @RequestParam(defaultValue="0") int page,
+                                              @RequestParam(defaultValue="10") int size) {
+        log.debug("Buscando itens - q={}, page={}, size={}", q, page, size);
+        return service.search(q, page, size);
+    }
+
+    /**
+     * Feed de mudanças (SSE). Na reconexão o navegador manda o
+     * {@code Last-Event-ID}, que tem precedência sobre {@code since}.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestParam(required=false) Long since,
+                              @RequestHeader(name="Last-Event-ID", required=false) Long lastEventId) {
+        return changes.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    @GetMapping("/stats")
+    public ItemStatsResponse stats(WebRequest request) {
+        if (request.checkNotModified(ItemETags.store(service.modificationCount()))) return null;
+        return service.stats();
+    }
+
+    /**
+     * Exporta o catálogo inteiro como NDJSON, item a item, direto no output
+     * stream: a memória usada não depende do número de itens.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue="false") boolean gzip) {
+        log.debug("Exportando itens - gzip={}", gzip);
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(target)) {
+                gen.setRootValueSeparator(new SerializedString("\n"));
+                long count = service.export(item -> {
+                    try {
+                        gen.writeObject(item);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (count > 0) gen.writeRaw('\n');
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(NDJSON);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
     }
 
     @GetMapping("/{id}")
-    public ItemResponse getById(@PathVariable Long id) {
-        log.info("Buscando item id={}", id);
-        return service.get(id);
+    public ResponseEntity<byte[]> getById(@PathVariable Long id, WebRequest request) {
+        log.debug("Buscando item id={}", id);
+        VersionedItem item = service.getVersioned(id);
+        if (request.checkNotModified(ItemETags.item(item))) return null;
+        return json(cache.item(item));
+    }
+
+    @GetMapping(path = "/{id}", produces = {CBOR, SMILE})
+    public ResponseEntity<ItemResponse> getByIdBinary(@PathVariable Long id, WebRequest request) {
+        MediaType type = binaryType(request);
+        VersionedItem item = service.getVersioned(id);
+        if (request.checkNotModified(ItemETags.variant(ItemETags.item(item), type.getSubtype()))) return null;
+        return binary(type, item.item());
+    }
+
+    @GetMapping("/cache")
+    public CacheStats cacheStats() {
+        return cache.stats();
     }
 
     @PostMapping
@@ -36,14 +183,57 @@ public class ItemController {
         return ResponseEntity.status(201).body(created);
     }
 
+    /** Importa NDJSON (um ItemRequest por linha), opcionalmente com Content-Encoding: gzip. */
+    @PostMapping("/import")
+    public ImportSummary importItems(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        ImportSummary summary = importer.importNdjson(in);
+        log.info("Importação concluída - linhas={}, importados={}, rejeitados={}",
+                summary.lines(), summary.imported(), summary.rejected());
+        return summary;
+    }
+
     @PutMapping("/{id}")
-    public ItemResponse update(@PathVariable Long id, @RequestBody ItemRequest request) {
-        return service.update(id, request);
+    public ItemResponse update(@PathVariable Long id, @RequestBody ItemRequest request,
+                               @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return service.update(id, request);
+        return service.update(id, request, ItemETags.version(ifMatch));
+    }
+
+    /** JSON Merge Patch: só os campos enviados mudam, e {@code null} apaga o campo. */
+    @PatchMapping(path = "/{id}", consumes = {MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public ItemResponse patch(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+                              @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch) {
+        ItemPatch changes = ItemPatch.of(patch);
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return service.patch(id, changes);
+        return service.patch(id, changes, ItemETags.version(ifMatch));
+    }
+
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    private static <T> ResponseEntity<T> binary(MediaType type, T body) {
+        return ResponseEntity.ok().contentType(type).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    /** O produces já garantiu que o Accept pede CBOR ou Smile; vale o de maior qualidade. */
+    private static MediaType binaryType(WebRequest request) {
+        List<MediaType> accepted = MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT));
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.includes(CBOR_TYPE)) return CBOR_TYPE;
+            if (type.includes(SMILE_TYPE)) return SMILE_TYPE;
+        }
+        return CBOR_TYPE;
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Long id) {
         service.delete(id);
-        return ResponseEntity.ok().body(java.util.Map.of("id", id, "deleted", true, "message", "Item removido com sucesso"));
+        return ResponseEntity.ok().body(Map.of("id", id, "deleted", true, "message", "Item removido com sucesso"));
     }
 }
@@ -0,0 +1,49 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.VersionedItem;
+
+/**
+ * ETags derivados das versões do {@link com.claudiobianco.java.renderapi.domain.ItemService}.
+ * As versões recomeçam a cada restart, por isso o ETag leva também uma época
+ * do processo: tags emitidas antes do restart nunca casam com as novas.
+ *
+ * <p>Tags de item são fortes porque o If-Match as compara byte a byte. As do
+ * catálogo inteiro (listagens, stats) só servem ao If-None-Match e são fracas:
+ * o Tomcat não comprime respostas com ETag forte, e as páginas são justamente
+ * as respostas grandes.
+ */
+final class ItemETags {
+
+    /** Versão que nenhum item tem: faz o If-Match falhar. */
+    static final long NO_VERSION = -2;
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ItemETags() {}
+
+    static String item(VersionedItem item) {
+        return "\"" + EPOCH + "-" + item.version() + "\"";
+    }
+
+    static String store(long modificationCount) {
+        return "W/\"" + EPOCH + "-s" + modificationCount + "\"";
+    }
+
+    /** Tag de outra representação (CBOR, Smile) do mesmo estado: ETags fortes não podem se repetir entre elas. */
+    static String variant(String etag, String format) {
+        return etag.substring(0, etag.length() - 1) + "+" + format + "\"";
+    }
+
+    /** Versão do item citada no If-Match, ou {@link #NO_VERSION} se a tag não for deste processo. */
+    static long version(String ifMatch) {
+        String tag = ifMatch.trim();
+        String prefix = "\"" + EPOCH + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"")) return NO_VERSION;
+        int end = tag.indexOf('+', prefix.length());
+        try {
+            return Long.parseLong(tag.substring(prefix.length(), end < 0 ? tag.length() - 1 : end));
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+}
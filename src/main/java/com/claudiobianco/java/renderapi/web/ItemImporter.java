@@ -0,0 +1,245 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.ImportError;
+import com.claudiobianco.java.renderapi.web.dto.ImportSummary;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Importa NDJSON em streaming: a thread da requisição lê linhas e monta blocos,
+ * que são convertidos e inseridos em lote por um pool próprio e limitado.
+ *
+ * <p>A fila do pool é curta e, quando enche, a própria thread da requisição
+ * processa o bloco ({@link ThreadPoolExecutor.CallerRunsPolicy}). Isso segura a
+ * leitura do corpo e mantém a memória limitada a poucos blocos, seja qual for o
+ * tamanho do upload, sem ocupar as threads do Tomcat que atendem o resto do tráfego.
+ * Uma linha maior que {@code max-line-chars} não é montada: o resto dela é
+ * descartado até a quebra de linha e ela entra como rejeitada.
+ *
+ * <p>Se a gravação de um bloco falhar (ex.: o journal), a falha é guardada
+ * igualmente pelo pool e pela thread da requisição: a leitura para, os blocos
+ * em andamento terminam e a importação lança {@link ImportFailedException}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ItemImporter {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ItemService service;
+    private final ObjectMapper objectMapper;
+    private final int chunkLines;
+    private final int maxLineChars;
+    private final ThreadPoolExecutor pool;
+
+    public ItemImporter(ItemService service, ObjectMapper objectMapper,
+                        @Value("${items.import.workers:0}") int workers,
+                        @Value("${items.import.chunk-lines:1000}") int chunkLines,
+                        @Value("${items.import.max-line-chars:65536}") int maxLineChars) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        this.chunkLines = chunkLines;
+        this.maxLineChars = maxLineChars;
+        int threads = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2),
+                r -> {
+                    Thread t = new Thread(r, "items-import-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public ImportSummary importNdjson(InputStream in) throws IOException {
+        LineReader reader = new LineReader(new InputStreamReader(in, StandardCharsets.UTF_8), maxLineChars);
+        Progress progress = new Progress();
+        Phaser pending = new Phaser(1);
+        try {
+            Chunk chunk = new Chunk(chunkLines);
+            long lineNo = 0;
+            String line;
+            while (progress.failure.get() == null && (line = reader.readLine()) != null) {
+                lineNo++;
+                if (reader.tooLong) {
+                    progress.lines.increment();
+                    progress.reject(lineNo, "linha maior que " + maxLineChars + " caracteres");
+                    continue;
+                }
+                if (line.isBlank()) continue;
+                chunk.add(lineNo, line);
+                if (chunk.size == chunkLines) {
+                    submit(chunk, progress, pending);
+                    chunk = new Chunk(chunkLines);
+                }
+            }
+            if (chunk.size > 0 && progress.failure.get() == null) submit(chunk, progress, pending);
+        } finally {
+            // mesmo se a leitura falhar, espera os blocos já enviados
+            pending.arriveAndAwaitAdvance();
+        }
+        RuntimeException failure = progress.failure.get();
+        if (failure != null) {
+            throw new ImportFailedException("importação interrompida: " + failure.getMessage()
+                    + " (" + progress.imported.sum() + " itens de blocos concluídos já foram gravados)", failure);
+        }
+        return progress.summary();
+    }
+
+    private void submit(Chunk chunk, Progress progress, Phaser pending) {
+        pending.register();
+        pool.execute(() -> {
+            try {
+                process(chunk, progress);
+            } catch (RuntimeException e) {
+                // a mesma coisa no pool e no CallerRunsPolicy: quem lê confere e para
+                progress.failure.compareAndSet(null, e);
+            } finally {
+                pending.arriveAndDeregister();
+            }
+        });
+    }
+
+    private void process(Chunk chunk, Progress progress) {
+        List<ItemRequest> valid = new ArrayList<>(chunk.size);
+        for (int i = 0; i < chunk.size; i++) {
+            progress.lines.increment();
+            try {
+                ItemRequest req = objectMapper.readValue(chunk.lines[i], ItemRequest.class);
+                if (req == null) {
+                    progress.reject(chunk.numbers[i], "linha sem objeto JSON");
+                } else {
+                    valid.add(req);
+                }
+            } catch (JsonProcessingException e) {
+                progress.reject(chunk.numbers[i], e.getOriginalMessage());
+            }
+        }
+        if (!valid.isEmpty()) {
+            service.createAll(valid);
+            progress.imported.add(valid.size());
+        }
+    }
+
+    /** Como {@code BufferedReader.readLine}, mas sem acumular mais que {@code max} caracteres por linha. */
+    private static final class LineReader {
+        private final Reader in;
+        private final int max;
+        private final char[] buf = new char[64 * 1024];
+        private final StringBuilder line = new StringBuilder();
+        private int pos, limit;
+        /** A última linha lida passou do limite e foi descartada; {@link #readLine()} devolveu "". */
+        boolean tooLong;
+
+        LineReader(Reader in, int max) {
+            this.in = in;
+            this.max = max;
+        }
+
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean any = false;
+            while (true) {
+                if (pos == limit) {
+                    limit = in.read(buf, 0, buf.length);
+                    pos = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return any ? finish() : null;
+                    }
+                }
+                any = true;
+                int start = pos;
+                while (pos < limit && buf[pos] != '\n') pos++;
+                if (!tooLong) {
+                    if (line.length() + (pos - start) > max + 1) {
+                        // +1 para o \r de um CRLF; daqui até a quebra de linha é só pular
+                        tooLong = true;
+                        line.setLength(0);
+                    } else {
+                        line.append(buf, start, pos - start);
+                    }
+                }
+                if (pos < limit) {
+                    pos++;
+                    return finish();
+                }
+            }
+        }
+
+        private String finish() {
+            int len = line.length();
+            if (len > 0 && line.charAt(len - 1) == '\r') line.setLength(--len);
+            if (len > max) {
+                tooLong = true;
+                line.setLength(0);
+            }
+            return line.toString();
+        }
+    }
+
+    private static final class Chunk {
+        final String[] lines;
+        final long[] numbers;
+        int size;
+
+        Chunk(int capacity) {
+            lines = new String[capacity];
+            numbers = new long[capacity];
+        }
+
+        void add(long number, String line) {
+            numbers[size] = number;
+            lines[size++] = line;
+        }
+    }
+
+    private static final class Progress {
+        final LongAdder lines = new LongAdder();
+        final LongAdder imported = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final ConcurrentLinkedQueue<ImportError> errors = new ConcurrentLinkedQueue<>();
+        final AtomicInteger reported = new AtomicInteger();
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        void reject(long line, String error) {
+            rejected.increment();
+            if (reported.incrementAndGet() <= MAX_REPORTED_ERRORS) errors.add(new ImportError(line, error));
+        }
+
+        ImportSummary summary() {
+            List<ImportError> sorted = new ArrayList<>(errors);
+            sorted.sort((a, b) -> Long.compare(a.line(), b.line()));
+            return new ImportSummary(lines.sum(), imported.sum(), rejected.sum(), sorted);
+        }
+    }
+}
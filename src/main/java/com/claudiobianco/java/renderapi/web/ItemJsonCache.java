@@ -0,0 +1,255 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+import com.claudiobianco.java.renderapi.domain.ItemChangeListener;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.domain.VersionedItem;
+import com.claudiobianco.java.renderapi.web.dto.CacheStats;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache do JSON já serializado de itens e de páginas da listagem, para que
+ * leituras repetidas não passem pelo Jackson.
+ *
+ * <p>Itens são guardados com a versão: só há acerto se a versão lida do
+ * service for a mesma, então um item alterado nunca é servido desatualizado.
+ * Páginas dependem de vários itens e do total, por isso são invalidadas pelo
+ * {@link ItemChangeListener}: um update remove só as páginas cujo intervalo de
+ * ids contém o item; create e delete mudam o total e removem todas.
+ *
+ * <p>O tamanho é limitado em bytes e a remoção segue o algoritmo CLOCK: cada
+ * acerto marca a entrada e o varredor descarta as que não foram lidas desde
+ * a última passada. Leituras não pegam lock.
+ */
+@Component
+public class ItemJsonCache implements ItemChangeListener, MeterBinder {
+
+    private final ItemService service;
+    private final ObjectMapper objectMapper;
+    private final Region items;
+    private final Region pages;
+    // muda a cada invalidação de páginas; ver putPage
+    private final AtomicLong pageGeneration = new AtomicLong();
+
+    public ItemJsonCache(ItemService service, ObjectMapper objectMapper,
+                         @Value("${items.cache.max-bytes:32MB}") DataSize maxBytes) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        long budget = maxBytes.toBytes();
+        this.items = new Region(budget - budget / 4);
+        this.pages = new Region(budget / 4);
+        service.addListener(this);
+    }
+
+    @PreDestroy
+    public void close() {
+        service.removeListener(this);
+    }
+
+    /** JSON do item na versão informada, serializado no máximo uma vez por versão. */
+    public byte[] item(VersionedItem item) {
+        long id = item.item().id();
+        Entry cached = items.get(id);
+        if (cached != null && cached.version == item.version()) {
+            items.hit(cached);
+            return cached.json;
+        }
+        items.misses.increment();
+        byte[] json = toJson(item.item());
+        items.put(id, new Entry(json, item.version(), id, id));
+        return json;
+    }
+
+    /** JSON da página sem filtros; o loader só é chamado quando a página não está no cache. */
+    public byte[] page(int page, int size, Supplier<PagedResponse<ItemResponse>> loader) {
+        long key = ((long) page << 32) | (size & 0xffffffffL);
+        Entry cached = pages.get(key);
+        if (cached != null) {
+            pages.hit(cached);
+            return cached.json;
+        }
+        pages.misses.increment();
+        long generation = pageGeneration.get();
+        PagedResponse<ItemResponse> response = loader.get();
+        byte[] json = toJson(response);
+        List<ItemResponse> slice = response.items();
+        if (!slice.isEmpty()) {
+            putPage(key, generation, new Entry(json, 0, slice.get(0).id(), slice.get(slice.size() - 1).id()));
+        }
+        return json;
+    }
+
+    /**
+     * A página foi montada antes de o put acontecer: se uma invalidação correu
+     * nesse meio tempo ela pode não ter visto a entrada, então a própria
+     * escrita se desfaz. O listener incrementa a geração antes de remover, logo
+     * ou a geração mudou aqui ou a remoção ainda vai encontrar a entrada.
+     */
+    private void putPage(long key, long generation, Entry entry) {
+        pages.put(key, entry);
+        if (pageGeneration.get() != generation) pages.remove(key, entry);
+    }
+
+    @Override
+    public void onChange(ItemChange change) {
+        pageGeneration.incrementAndGet();
+        long id = change.id();
+        if (change.type() == ItemChange.Type.UPDATED) {
+            pages.removeIf(e -> e.firstId <= id && id <= e.lastId);
+        } else {
+            pages.removeIf(e -> true);
+        }
+        if (change.type() != ItemChange.Type.CREATED) items.remove(id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        items.bindTo(registry, "items");
+        pages.bindTo(registry, "pages");
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(items.stats(), pages.stats());
+    }
+
+    public void clear() {
+        pageGeneration.incrementAndGet();
+        items.removeIf(e -> true);
+        pages.removeIf(e -> true);
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entry {
+        final byte[] json;
+        final long version;
+        final long firstId;
+        final long lastId;
+        volatile boolean referenced;
+
+        Entry(byte[] json, long version, long firstId, long lastId) {
+            this.json = json;
+            this.version = version;
+            this.firstId = firstId;
+            this.lastId = lastId;
+        }
+    }
+
+    private static final class Region {
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        private final long maxBytes;
+        private final AtomicLong bytes = new AtomicLong();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+        private final ReentrantLock sweeping = new ReentrantLock();
+
+        Region(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        Entry get(long key) {
+            return entries.get(key);
+        }
+
+        void hit(Entry entry) {
+            // evita escrever no campo volátil a cada acerto quando já está marcado
+            if (!entry.referenced) entry.referenced = true;
+            hits.increment();
+        }
+
+        void put(long key, Entry entry) {
+            // uma entrada grande demais expulsaria boa parte do cache sozinha
+            if (entry.json.length > maxBytes / 8) return;
+            Entry old = entries.put(key, entry);
+            bytes.addAndGet(entry.json.length - (old == null ? 0 : old.json.length));
+            if (bytes.get() > maxBytes) sweep();
+        }
+
+        void remove(long key) {
+            Entry old = entries.remove(key);
+            if (old != null) removed(old, invalidations);
+        }
+
+        void remove(long key, Entry entry) {
+            if (entries.remove(key, entry)) removed(entry, invalidations);
+        }
+
+        void removeIf(Predicate<Entry> predicate) {
+            if (entries.isEmpty()) return;
+            entries.forEach((key, entry) -> {
+                if (predicate.test(entry)) remove(key, entry);
+            });
+        }
+
+        /** Descarta entradas não lidas desde a última passada até ficar abaixo de 90% do limite. */
+        private void sweep() {
+            if (!sweeping.tryLock()) return;
+            try {
+                long target = maxBytes - maxBytes / 10;
+                while (bytes.get() > target) {
+                    for (Map.Entry<Long, Entry> e : entries.entrySet()) {
+                        if (bytes.get() <= target) break;
+                        Entry entry = e.getValue();
+                        if (entry.referenced) {
+                            entry.referenced = false;
+                        } else if (entries.remove(e.getKey(), entry)) {
+                            removed(entry, evictions);
+                        }
+                    }
+                }
+            } finally {
+                sweeping.unlock();
+            }
+        }
+
+        private void removed(Entry entry, LongAdder counter) {
+            bytes.addAndGet(-entry.json.length);
+            counter.increment();
+        }
+
+        void bindTo(MeterRegistry registry, String name) {
+            Gauge.builder("items.cache.entries", entries, Map::size).tag("region", name).register(registry);
+            Gauge.builder("items.cache.bytes", bytes, AtomicLong::get).tag("region", name).register(registry);
+            FunctionCounter.builder("items.cache.hits", hits, LongAdder::sum).tag("region", name).register(registry);
+            FunctionCounter.builder("items.cache.misses", misses, LongAdder::sum).tag("region", name).register(registry);
+            FunctionCounter.builder("items.cache.evictions", evictions, LongAdder::sum).tag("region", name).register(registry);
+            FunctionCounter.builder("items.cache.invalidations", invalidations, LongAdder::sum).tag("region", name).register(registry);
+        }
+
+        CacheStats.Region stats() {
+            long h = hits.sum();
+            long m = misses.sum();
+            return new CacheStats.Region(entries.size(), bytes.get(), maxBytes, h, m,
+                    h + m == 0 ? 0 : (double) h / (h + m), evictions.sum(), invalidations.sum());
+        }
+    }
+}
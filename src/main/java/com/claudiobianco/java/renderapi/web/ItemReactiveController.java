@@ -0,0 +1,210 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemFilter;
+import com.claudiobianco.java.renderapi.domain.ItemPatch;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.domain.VersionedItem;
+import com.claudiobianco.java.renderapi.web.dto.BatchRequest;
+import com.claudiobianco.java.renderapi.web.dto.BatchResponse;
+import com.claudiobianco.java.renderapi.web.dto.CacheStats;
+import com.claudiobianco.java.renderapi.web.dto.CursorPage;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.ItemStatsResponse;
+import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Variante WebFlux do {@link ItemController}, ativa com o perfil
+ * {@code reactive}. Usa o mesmo {@link ItemService} e o mesmo
+ * {@link ItemJsonCache}.
+ *
+ * <p>Leituras respondem na própria thread do event loop, porque o service só
+ * toca memória. Escritas podem esperar o fsync do WAL e por isso rodam no
+ * {@code boundedElastic}. A exportação e a listagem por cursor em NDJSON são
+ * {@link Flux} puxados por demanda: a próxima página do store só é lida quando
+ * o cliente consumiu a anterior, e cancelar a resposta fecha o cursor.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1")
+public class ItemReactiveController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int STREAM_PAGE = 1024;
+
+    private final ItemService service;
+    private final ObjectMapper objectMapper;
+    private final ItemJsonCache cache;
+
+    public ItemReactiveController(ItemService service, ObjectMapper objectMapper, ItemJsonCache cache) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        this.cache = cache;
+    }
+
+    @GetMapping("/items")
+    public ResponseEntity<?> list(@RequestParam(defaultValue="0") int page,
+                                  @RequestParam(defaultValue="10") int size,
+                                  @RequestParam(required=false) String categoria,
+                                  @RequestParam(required=false) String status,
+                                  @RequestParam(required=false) Double precoMin,
+                                  @RequestParam(required=false) Double precoMax,
+                                  ServerWebExchange exchange) {
+        if (exchange.checkNotModified(ItemETags.store(service.modificationCount()))) return null;
+        ItemFilter filter = new ItemFilter(categoria, status, precoMin, precoMax);
+        if (!filter.isEmpty()) return ResponseEntity.ok(service.list(page, size, filter));
+        return json(cache.page(page, size, () -> service.list(page, size)));
+    }
+
+    @GetMapping(path = "/items", params = "after")
+    public CursorPage<ItemResponse> listAfter(@RequestParam long after,
+                                              @RequestParam(defaultValue="100") int limit,
+                                              ServerWebExchange exchange) {
+        if (exchange.checkNotModified(ItemETags.store(service.modificationCount()))) return null;
+        return service.listAfter(after, limit);
+    }
+
+    /** Itens com id maior que {@code after}, até {@code limit}, em NDJSON e sob demanda. */
+    @GetMapping(path = "/items/stream", produces = NDJSON)
+    public Flux<DataBuffer> stream(@RequestParam(defaultValue="0") long after,
+                                   @RequestParam(defaultValue="100") long limit,
+                                   ServerHttpResponse response) {
+        Flux<List<ItemResponse>> pages = Flux.generate(() -> new long[] {after, limit}, (state, sink) -> {
+            List<ItemResponse> items = state[1] <= 0 ? List.of()
+                    : service.listAfter(state[0], (int) Math.min(state[1], STREAM_PAGE)).items();
+            if (items.isEmpty()) {
+                sink.complete();
+            } else {
+                sink.next(items);
+                state[0] = items.get(items.size() - 1).id();
+                state[1] -= items.size();
+            }
+            return state;
+        });
+        return pages.map(page -> ndjson(page, response.bufferFactory()));
+    }
+
+    @GetMapping("/items/search")
+    public PagedResponse<ItemResponse> search(@RequestParam String q,
+                                              @RequestParam(defaultValue="0") int page,
+                                              @RequestParam(defaultValue="10") int size) {
+        return service.search(q, page, size);
+    }
+
+    @GetMapping("/items/stats")
+    public ItemStatsResponse stats(ServerWebExchange exchange) {
+        if (exchange.checkNotModified(ItemETags.store(service.modificationCount()))) return null;
+        return service.stats();
+    }
+
+    /**
+     * Catálogo inteiro em NDJSON, com a mesma visão consistente do export
+     * servlet. Roda no {@code boundedElastic}: entre páginas o cursor espera as
+     * escritas em andamento, e com {@code fsync=always} elas esperam o disco.
+     */
+    @GetMapping(path = "/items/export", produces = NDJSON)
+    public Flux<DataBuffer> export(ServerHttpResponse response) {
+        Flux<List<ItemResponse>> pages = Flux.generate(service::exportCursor, (cursor, sink) -> {
+            List<ItemResponse> page = cursor.next();
+            if (page == null) sink.complete(); else sink.next(page);
+            return cursor;
+        }, ItemService.ExportCursor::close);
+        return pages.map(page -> ndjson(page, response.bufferFactory()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/items/{id}")
+    public ResponseEntity<byte[]> getById(@PathVariable Long id, ServerWebExchange exchange) {
+        VersionedItem item = service.getVersioned(id);
+        if (exchange.checkNotModified(ItemETags.item(item))) return null;
+        return json(cache.item(item));
+    }
+
+    @GetMapping("/items/cache")
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    @PostMapping("/items")
+    public Mono<ResponseEntity<ItemResponse>> create(@RequestBody ItemRequest request) {
+        return blocking(() -> ResponseEntity.status(201).body(service.create(request)));
+    }
+
+    @PutMapping("/items/{id}")
+    public Mono<ItemResponse> update(@PathVariable Long id, @RequestBody ItemRequest request,
+                                     @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return blocking(() -> service.update(id, request));
+        }
+        long version = ItemETags.version(ifMatch);
+        return blocking(() -> service.update(id, request, version));
+    }
+
+    @PatchMapping(path = "/items/{id}", consumes = {ItemController.MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ItemResponse> patch(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+                                    @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch) {
+        ItemPatch changes = ItemPatch.of(patch);
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return blocking(() -> service.patch(id, changes));
+        }
+        long version = ItemETags.version(ifMatch);
+        return blocking(() -> service.patch(id, changes, version));
+    }
+
+    @DeleteMapping("/items/{id}")
+    public Mono<Map<String, Object>> delete(@PathVariable Long id) {
+        return blocking(() -> {
+            service.delete(id);
+            return Map.of("id", id, "deleted", true, "message", "Item removido com sucesso");
+        });
+    }
+
+    @PostMapping("/items:batch")
+    public Mono<BatchResponse> batch(@RequestBody BatchRequest request) {
+        return blocking(() -> service.applyBatch(request.operations() == null ? List.of() : request.operations()));
+    }
+
+    /** Escritas podem esperar o fsync do WAL: saem do event loop. */
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /** Uma página inteira num único buffer: um write por página, não por item. */
+    private DataBuffer ndjson(List<ItemResponse> page, DataBufferFactory buffers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(page.size() * 192);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.setRootValueSeparator(new SerializedString("\n"));
+            for (ItemResponse item : page) gen.writeObject(item);
+            gen.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffers.wrap(out.toByteArray());
+    }
+
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,7 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+public record BatchOperation(
+        String op,
+        Long id,
+        ItemRequest item
+) {}
@@ -0,0 +1,7 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+import java.util.List;
+
+public record BatchRequest(
+        List<BatchOperation> operations
+) {}
@@ -0,0 +1,9 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+import java.util.List;
+
+public record BatchResponse(
+        List<BatchResult> results,
+        int succeeded,
+        int failed
+) {}
@@ -0,0 +1,9 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+public record BatchResult(
+        int index,
+        String op,
+        Long id,
+        int status,
+        String error
+) {}
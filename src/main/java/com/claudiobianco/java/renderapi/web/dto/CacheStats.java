@@ -0,0 +1,17 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+public record CacheStats(
+        Region items,
+        Region pages
+) {
+    public record Region(
+            long entries,
+            long bytes,
+            long maxBytes,
+            long hits,
+            long misses,
+            double hitRatio,
+            long evictions,
+            long invalidations
+    ) {}
+}
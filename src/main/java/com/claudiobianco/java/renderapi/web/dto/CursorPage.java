@@ -0,0 +1,10 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(
+        List<T> items,
+        int limit,
+        long totalItems,
+        Long nextCursor
+) {}
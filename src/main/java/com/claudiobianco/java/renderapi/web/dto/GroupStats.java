@@ -0,0 +1,15 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+/**
+ * Agregado de um valor de categoria ou status. {@code priced} conta só os
+ * itens com preço; {@code min}, {@code max} e {@code avg} são nulos se não houver nenhum.
+ */
+public record GroupStats(
+        String value,
+        long count,
+        long priced,
+        double sum,
+        Double min,
+        Double max,
+        Double avg
+) {}
@@ -0,0 +1,6 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+public record ImportError(
+        long line,
+        String error
+) {}
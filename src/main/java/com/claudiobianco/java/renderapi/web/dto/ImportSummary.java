@@ -0,0 +1,10 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+import java.util.List;
+
+public record ImportSummary(
+        long lines,
+        long imported,
+        long rejected,
+        List<ImportError> errors
+) {}
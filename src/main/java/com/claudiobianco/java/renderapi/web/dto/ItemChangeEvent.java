@@ -0,0 +1,11 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+
+/** Mutação publicada no feed de mudanças; {@code item} é nulo em remoções. */
+public record ItemChangeEvent(
+        long seq,
+        ItemChange.Type type,
+        long id,
+        ItemResponse item
+) {}
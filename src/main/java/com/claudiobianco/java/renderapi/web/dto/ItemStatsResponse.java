@@ -0,0 +1,9 @@
+package com.claudiobianco.java.renderapi.web.dto;
+
+import java.util.List;
+
+public record ItemStatsResponse(
+        long totalItems,
+        List<GroupStats> categorias,
+        List<GroupStats> status
+) {}
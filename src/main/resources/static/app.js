@@ -31,6 +31,9 @@
     vm.lookupId = null;
     vm.lookupItem = null;
 
+    // true enquanto o feed de mudanças (SSE) está conectado
+    vm.live = false;
+
     // métodos expostos
     vm.loadPage = loadPage;
     vm.prevPage = function() { if (vm.page > 0) loadPage(vm.page - 1); };
@@ -52,6 +55,7 @@
     vm.fetchById = fetchById;
 
     // init
+    listenChanges();
     loadPage(0);
 
     // ------------- Implementação -------------
@@ -97,8 +101,8 @@
           .then(function(resp) {
             vm.msgSuccess = 'Item atualizado com sucesso.';
             replaceInList(resp.data);
-            // recarrega a página atual para refletir paginação
-            loadPage(vm.page);
+            // sem o feed, recarrega a página atual
+            if (!vm.live) loadPage(vm.page);
             // limpa feedback
             clearMsgLater();
           })
@@ -108,11 +112,8 @@
         $http.post(API_BASE + '/api/v1/items', payload)
           .then(function(resp) {
             vm.msgSuccess = 'Item criado com sucesso.';
-            // insere no topo visualmente
-            vm.items.unshift(resp.data);
-            vm.totalItems += 1;
-            // pode reconsultar página 0 para ficar consistente
-            loadPage(0);
+            // com o feed conectado o item chega pelo evento CREATED
+            if (!vm.live) loadPage(vm.page);
             resetForm();
             clearMsgLater();
           })
@@ -127,9 +128,11 @@
       $http.delete(API_BASE + '/api/v1/items/' + item.id)
         .then(function() {
           vm.msgSuccess = 'Item excluído com sucesso.';
-          removeFromList(item.id);
-          // ajusta paginação caso necessário
-          loadPage(vm.page);
+          // com o feed conectado a paginação é ajustada pelo evento DELETED
+          if (!vm.live) {
+            removeFromList(item.id);
+            loadPage(vm.page);
+          }
           clearMsgLater();
         })
         .catch(handleHttpError);
@@ -147,6 +150,51 @@
         .catch(handleHttpError);
     }
 
+    // ---------- Feed de mudanças ----------
+
+    // o EventSource reconecta sozinho e manda o Last-Event-ID, então nada se perde na queda
+    function listenChanges() {
+      if (!window.EventSource) return;
+      var source = new EventSource(API_BASE + '/api/v1/items/changes');
+      source.onopen = function() { $timeout(function() { vm.live = true; }); };
+      source.onerror = function() { $timeout(function() { vm.live = false; }); };
+      source.addEventListener('change', function(ev) {
+        var change = JSON.parse(ev.data);
+        $timeout(function() { applyChange(change); });
+      });
+      // ficamos para trás do que o servidor guarda: só recarregando
+      source.addEventListener('reset', function() {
+        $timeout(function() { loadPage(vm.page); });
+      });
+    }
+
+    function applyChange(change) {
+      if (change.type === 'UPDATED') {
+        replaceInList(change.item);
+        if (vm.lookupItem && vm.lookupItem.id === change.id) vm.lookupItem = change.item;
+        return;
+      }
+      var lastPage = vm.page >= vm.totalPages - 1;
+      if (change.type === 'CREATED') {
+        vm.totalItems += 1;
+        // ids são crescentes: o item novo vai para o fim da última página
+        if (lastPage && vm.items.length < vm.size) vm.items.push(change.item);
+      } else if (change.type === 'DELETED') {
+        vm.totalItems -= 1;
+        if (vm.lookupItem && vm.lookupItem.id === change.id) vm.lookupItem = null;
+        var first = vm.items.length ? vm.items[0].id : Infinity;
+        var shown = vm.items.length;
+        removeFromList(change.id);
+        // uma remoção antes desta página, ou nela com páginas depois, desloca os itens
+        var shifted = (change.id < first && vm.page > 0) || (vm.items.length < shown && !lastPage) ||
+                      (vm.items.length === 0 && vm.page > 0);
+        vm.totalPages = Math.ceil(vm.totalItems / vm.size);
+        if (shifted) loadPage(Math.min(vm.page, Math.max(0, vm.totalPages - 1)));
+        return;
+      }
+      vm.totalPages = Math.ceil(vm.totalItems / vm.size);
+    }
+
     // ---------- Auxiliares ----------
 
     function replaceInList(updated) {
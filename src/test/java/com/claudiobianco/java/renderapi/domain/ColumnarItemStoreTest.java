@@ -0,0 +1,95 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Roda os mesmos cenários do {@link ConcurrentItemStoreTest} e os específicos das colunas. */
+class ColumnarItemStoreTest extends ConcurrentItemStoreTest {
+
+    private static final int CHUNK = ColumnarItemStore.CHUNK;
+
+    @Override
+    ItemStore newStore() {
+        return new ColumnarItemStore();
+    }
+
+    @Test
+    void devolveOItemExatamenteComoFoiGravado() {
+        String agora = Instant.now().toString();
+        ItemResponse comNulos = new ItemResponse(1L, "Café ☕", null, null, null, "Padaria", agora, null);
+        ItemResponse foraDoFormato = new ItemResponse(2L, "", "Desc", "ATIVO", -0.5, "Padaria",
+                "2025-01-01T00:00:00.000Z", "ontem");
+
+        store.insert(comNulos, 7);
+        store.insert(foraDoFormato, 8);
+
+        assertEquals(comNulos, store.get(1));
+        assertEquals(foraDoFormato, store.get(2));
+        assertEquals(7, store.getVersioned(1).version());
+        assertNull(store.get(3));
+        assertNull(store.get(-1));
+    }
+
+    @Test
+    void paginaECursorAtravessamBlocosVaziosEBuracos() {
+        for (long id = 1; id <= 3L * CHUNK; id++) store.insert(item(id, id), id);
+        for (long id = 1; id <= 2L * CHUNK; id++) if (id % 1000 != 0) store.remove(id);
+        long far = 10L * CHUNK + 5;
+        store.insert(item(far, 1.0), 1);
+
+        // vivos: múltiplos de 1000 até 2*CHUNK, o terceiro bloco inteiro e o id distante
+        long sparse = (2L * CHUNK) / 1000;
+        assertEquals(sparse + CHUNK + 1, store.size());
+        assertEquals(List.of(1000L, 2000L), store.page(0, 2).stream().map(ItemResponse::id).toList());
+        assertEquals(2L * CHUNK + 1, store.page(sparse, 1).get(0).id());
+        assertEquals(far, store.page(sparse + CHUNK, 5).get(0).id());
+        assertEquals(List.of(far), store.after(3L * CHUNK, 5).stream().map(ItemResponse::id).toList());
+        assertTrue(store.after(far, 5).isEmpty());
+    }
+
+    @Test
+    void cursorNoMaiorIdPossivelDevolvePaginaVazia() {
+        for (long id = 1; id <= 3; id++) store.insert(item(id, id), id);
+
+        assertTrue(store.after(Long.MAX_VALUE, 10).isEmpty());
+        assertEquals(List.of(1L, 2L, 3L), store.after(Long.MIN_VALUE, 10).stream().map(ItemResponse::id).toList());
+    }
+
+    @Test
+    void leitoresNuncaVeemUmaLinhaPelaMetade() throws Exception {
+        store.insert(item(1, 0), 0);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong torn = new AtomicLong();
+
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 5_000; i++) {
+                int n = i;
+                store.update(1, current -> new ItemResponse(1L, "v" + n, "d" + n, "ATIVO", (double) n, "GERAL",
+                        current.createdAt(), current.updatedAt()), n);
+            }
+            writing.set(false);
+        });
+        writer.start();
+        runConcurrently(() -> {
+            while (writing.get()) {
+                VersionedItem v = store.getVersioned(1);
+                ItemResponse it = v.item();
+                long n = it.preco().longValue();
+                if (n > 0 && (!it.nome().equals("v" + n) || !it.descricao().equals("d" + n) || v.version() != n)) {
+                    torn.incrementAndGet();
+                }
+            }
+        });
+        writer.join();
+
+        assertEquals(0, torn.get());
+        assertEquals("v5000", store.get(1).nome());
+    }
+}
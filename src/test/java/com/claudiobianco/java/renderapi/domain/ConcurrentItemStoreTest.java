@@ -0,0 +1,120 @@
+package com.claudiobianco.java.renderapi.domain;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentItemStoreTest {
+
+    private static final int THREADS = 8;
+
+    final ItemStore store = newStore();
+
+    ItemStore newStore() {
+        return new ConcurrentItemStore();
+    }
+
+    ItemResponse item(long id, double preco) {
+        return new ItemResponse(id, "Item " + id, "Desc", "ATIVO", preco, "GERAL",
+                "2025-01-01T00:00:00Z", "2025-01-01T00:00:00Z");
+    }
+
+    void runConcurrently(Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+    }
+
+    @Test
+    void paginaEmOrdemDeIdSemCopiarTudo() {
+        store.insert(item(3, 3.0), 1);
+        store.insert(item(1, 1.0), 2);
+        store.insert(item(2, 2.0), 3);
+
+        assertEquals(List.of(1L, 2L), store.page(0, 2).stream().map(ItemResponse::id).toList());
+        assertEquals(List.of(3L), store.page(2, 2).stream().map(ItemResponse::id).toList());
+        assertTrue(store.page(10, 2).isEmpty());
+        assertTrue(store.page(0, 0).isEmpty());
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void insertNaoSobrescreveIdExistente() {
+        assertTrue(store.insert(item(1, 1.0), 1));
+        assertFalse(store.insert(item(1, 2.0), 2));
+        assertEquals(1.0, store.get(1).preco());
+        assertEquals(1, store.getVersioned(1).version());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void updateERemoveDeIdInexistenteRetornamNull() {
+        assertNull(store.update(42, current -> current, 1));
+        assertNull(store.remove(42));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void updatesConcorrentesNoMesmoItemNaoSePerdem() throws Exception {
+        int perThread = 5_000;
+        store.insert(item(1, 0.0), 0);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < perThread; i++) {
+                store.update(1, current -> item(1, current.preco() + 1), 0);
+            }
+        });
+
+        assertEquals(THREADS * perThread, store.get(1).preco());
+    }
+
+    @Test
+    void createsConcorrentesNoServiceNaoPerdemItens() throws Exception {
+        int perThread = 2_000;
+        ItemService service = new ItemService(store);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < perThread; i++) {
+                ItemResponse created = service.create(new ItemRequest("X", "Desc", "ATIVO", 1.0, "GERAL"));
+                service.update(created.id(), new ItemRequest("Y", "Desc", "ATIVO", 2.0, "GERAL"));
+                if (i % 2 == 0) service.delete(created.id());
+            }
+        });
+
+        long expected = (long) THREADS * perThread / 2;
+        assertEquals(expected, store.size());
+        List<ItemResponse> all = store.page(0, (int) expected + 1);
+        assertEquals(expected, all.size());
+
+        Set<Long> ids = new HashSet<>();
+        long previous = 0;
+        for (ItemResponse it : all) {
+            assertTrue(it.id() > previous, "itens devem sair em ordem de id");
+            previous = it.id();
+            assertTrue(ids.add(it.id()));
+            assertEquals("Y", it.nome());
+        }
+    }
+}
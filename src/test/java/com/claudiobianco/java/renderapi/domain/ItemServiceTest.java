@@ -1,11 +1,21 @@
 package com.claudiobianco.java.renderapi.domain;
 
+import com.claudiobianco.java.renderapi.web.dto.BatchOperation;
+import com.claudiobianco.java.renderapi.web.dto.BatchResponse;
+import com.claudiobianco.java.renderapi.web.dto.GroupStats;
+import com.claudiobianco.java.renderapi.web.dto.CursorPage;
 import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
 import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.ItemStatsResponse;
 import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -92,4 +102,387 @@ class ItemServiceTest {
         // itens não devem explodir
         assertNotNull(pSizeZero.items());
     }
+
+    @Test
+    void listaPorCursorPercorreTodosOsItens() {
+        for (int i = 0; i < 5; i++) service.create(req("I" + i, i));
+        service.delete(3L);
+
+        CursorPage<ItemResponse> p1 = service.listAfter(0, 2);
+        assertEquals(List.of(1L, 2L), p1.items().stream().map(ItemResponse::id).toList());
+        assertEquals(4, p1.totalItems());
+        assertEquals(2L, p1.nextCursor());
+
+        CursorPage<ItemResponse> p2 = service.listAfter(p1.nextCursor(), 2);
+        assertEquals(List.of(4L, 5L), p2.items().stream().map(ItemResponse::id).toList());
+        assertNull(p2.nextCursor());
+
+        CursorPage<ItemResponse> vazio = service.listAfter(5, 2);
+        assertTrue(vazio.items().isEmpty());
+        assertNull(vazio.nextCursor());
+    }
+
+    @Test
+    void loteAplicaOperacoesEReportaFalhasParciais() {
+        ItemResponse existente = service.create(req("Antigo", 10.0));
+
+        BatchResponse resp = service.applyBatch(List.of(
+                new BatchOperation("create", null, req("Novo 1", 1.0)),
+                new BatchOperation("create", null, req("Novo 2", 2.0)),
+                new BatchOperation("update", existente.id(), req("Atualizado", 11.0)),
+                new BatchOperation("delete", 999L, null),
+                new BatchOperation("create", null, null),
+                new BatchOperation("upsert", 1L, req("X", 1.0))
+        ));
+
+        assertEquals(3, resp.succeeded());
+        assertEquals(3, resp.failed());
+        assertEquals(List.of(201, 201, 200, 404, 400, 400),
+                resp.results().stream().map(r -> r.status()).toList());
+
+        Long novo1 = resp.results().get(0).id();
+        Long novo2 = resp.results().get(1).id();
+        assertEquals(novo1 + 1, novo2);
+        // um único timestamp para o lote
+        assertEquals(service.get(novo1).createdAt(), service.get(existente.id()).updatedAt());
+        assertEquals("Atualizado", service.get(existente.id()).nome());
+        assertEquals(3, service.list(0, 10).totalItems());
+
+        // ids reservados pelo lote não são reutilizados
+        assertTrue(service.create(req("Depois", 1.0)).id() > novo2 + 1);
+    }
+
+    @Test
+    void loteTravaCadaFaixaUmaVezEMantemAOrdemDoMesmoId() {
+        ItemResponse a = service.create(req("A", 1.0));
+        ItemResponse b = service.create(req("B", 2.0));
+        List<List<ItemChange>> journaled = new ArrayList<>();
+        service.setJournal(new ItemChangeJournal() {
+            @Override
+            public void append(ItemChange change) {
+                fail("o lote grava pelo appendAll");
+            }
+
+            @Override
+            public void appendAll(List<ItemChange> changes) {
+                journaled.add(List.copyOf(changes));
+            }
+        });
+        long next = service.lastId() + 1;
+
+        BatchResponse resp = service.applyBatch(List.of(
+                new BatchOperation("update", a.id(), req("A2", 1.5)),
+                new BatchOperation("create", null, req("C", 3.0)),
+                new BatchOperation("delete", a.id(), null),
+                new BatchOperation("update", a.id(), req("A3", 1.0)),
+                new BatchOperation("update", next, req("C2", 3.5)),
+                new BatchOperation("update", b.id(), req("B2", 2.5))
+        ));
+
+        assertEquals(List.of(200, 201, 200, 404, 200, 200), resp.results().stream().map(r -> r.status()).toList());
+        assertThrows(ItemNotFoundException.class, () -> service.get(a.id()));
+        assertEquals("C2", service.get(next).nome());
+        assertEquals("B2", service.get(b.id()).nome());
+        // uma gravação por faixa de lock tocada (ids 1, 2 e 3)
+        assertEquals(3, journaled.size());
+        assertEquals(List.of(ItemChange.Type.UPDATED, ItemChange.Type.DELETED),
+                journaled.get(0).stream().map(ItemChange::type).toList());
+        assertEquals(List.of(ItemChange.Type.CREATED, ItemChange.Type.UPDATED),
+                journaled.get(2).stream().map(ItemChange::type).toList());
+
+        // journal indisponível: o grupo falha inteiro e nada dele é aplicado
+        service.setJournal(change -> { throw new IllegalStateException("disco cheio"); });
+        BatchResponse failed = service.applyBatch(List.of(
+                new BatchOperation("update", b.id(), req("B3", 9.0)),
+                new BatchOperation("delete", 999L, null)));
+        assertEquals(List.of(500, 404), failed.results().stream().map(r -> r.status()).toList());
+        assertEquals("B2", service.get(b.id()).nome());
+    }
+
+    @Test
+    void listaFiltradaPorIndicesSecundarios() {
+        service.create(new ItemRequest("A", "Desc", "ATIVO", 10.0, "ELETR"));
+        service.create(new ItemRequest("B", "Desc", "INATIVO", 20.0, "ELETR"));
+        service.create(new ItemRequest("C", "Desc", "ATIVO", 30.0, "MOVEIS"));
+        ItemResponse d = service.create(new ItemRequest("D", "Desc", "ATIVO", 40.0, "ELETR"));
+        service.create(new ItemRequest("E", "Desc", "ATIVO", null, "ELETR"));
+
+        PagedResponse<ItemResponse> eletrAtivos = service.list(0, 10, new ItemFilter("ELETR", "ATIVO", null, null));
+        assertEquals(List.of("A", "D", "E"), eletrAtivos.items().stream().map(ItemResponse::nome).toList());
+        assertEquals(3, eletrAtivos.totalItems());
+
+        PagedResponse<ItemResponse> faixa = service.list(0, 10, new ItemFilter(null, null, 15.0, 40.0));
+        assertEquals(List.of("B", "C", "D"), faixa.items().stream().map(ItemResponse::nome).toList());
+
+        PagedResponse<ItemResponse> pagina2 = service.list(1, 2, new ItemFilter("ELETR", null, null, 45.0));
+        assertEquals(List.of("D"), pagina2.items().stream().map(ItemResponse::nome).toList());
+        assertEquals(3, pagina2.totalItems());
+        assertEquals(2, pagina2.totalPages());
+
+        // índices acompanham update e delete
+        service.update(d.id(), new ItemRequest("D", "Desc", "INATIVO", 5.0, "MOVEIS"));
+        assertEquals(List.of("C", "D"), service.list(0, 10, new ItemFilter("MOVEIS", null, null, null))
+                .items().stream().map(ItemResponse::nome).toList());
+        assertEquals(List.of("D"), service.list(0, 10, new ItemFilter(null, null, null, 9.0))
+                .items().stream().map(ItemResponse::nome).toList());
+        service.delete(d.id());
+        assertEquals(1, service.list(0, 10, new ItemFilter("MOVEIS", null, null, null)).totalItems());
+
+        assertEquals(0, service.list(0, 10, new ItemFilter("NAO_EXISTE", "ATIVO", null, null)).totalItems());
+        assertEquals(0, service.list(0, 10, new ItemFilter(null, null, 50.0, 10.0)).totalItems());
+        assertEquals(4, service.list(0, 10, ItemFilter.NONE).totalItems());
+    }
+
+    @Test
+    void paginasFiltradasPorCategoriaEStatusSaoFatiasDoIndice() {
+        for (int i = 0; i < 100; i++) {
+            service.create(new ItemRequest("I" + i, "Desc", i % 2 == 0 ? "ATIVO" : "INATIVO", (double) i, i % 4 < 2 ? "ELETR" : "MOVEIS"));
+        }
+        ItemFilter eletrAtivos = new ItemFilter("ELETR", "ATIVO", null, null);
+        PagedResponse<ItemResponse> ultima = service.list(4, 5, eletrAtivos);
+        assertEquals(25, ultima.totalItems());
+        assertEquals(5, ultima.totalPages());
+        // ids 1, 5, 9, ...: a página 4 começa no 21º
+        assertEquals(List.of(81L, 85L, 89L, 93L, 97L), ultima.items().stream().map(ItemResponse::id).toList());
+        assertTrue(service.list(5, 5, eletrAtivos).items().isEmpty());
+        assertEquals(25, service.list(0, 0, eletrAtivos).totalItems());
+
+        // o índice composto acompanha a troca de um dos dois campos
+        service.update(1L, new ItemRequest("I0", "Desc", "INATIVO", 0.0, "ELETR"));
+        service.update(2L, new ItemRequest("I1", "Desc", "ATIVO", 1.0, "ELETR"));
+        PagedResponse<ItemResponse> primeira = service.list(0, 2, eletrAtivos);
+        assertEquals(25, primeira.totalItems());
+        assertEquals(List.of(2L, 5L), primeira.items().stream().map(ItemResponse::id).toList());
+        assertEquals(50, service.list(0, 1, new ItemFilter(null, "ATIVO", null, null)).totalItems());
+    }
+
+    @Test
+    void buscaTextualIgnoraAcentosERanqueiaPorRelevancia() {
+        ItemResponse notebook = service.create(new ItemRequest("Notebook Dell", "Eletrônico com SSD", "ATIVO", 1.0, "ELETR"));
+        ItemResponse mouse = service.create(new ItemRequest("Mouse sem fio", "Acessório para notebook", "ATIVO", 1.0, "ELETR"));
+        service.create(new ItemRequest("Cadeira", "Móvel de escritório", "ATIVO", 1.0, "MOVEIS"));
+
+        // termo no nome pesa mais que na descrição
+        assertEquals(List.of(notebook.id(), mouse.id()),
+                service.search("NOTEBOOK", 0, 10).items().stream().map(ItemResponse::id).toList());
+        // acentos e prefixo
+        assertEquals(List.of(notebook.id()),
+                service.search("eletronico", 0, 10).items().stream().map(ItemResponse::id).toList());
+        assertEquals(1, service.search("escrit", 0, 10).totalItems());
+        // AND entre termos
+        assertEquals(List.of(mouse.id()),
+                service.search("notebook acessorio", 0, 10).items().stream().map(ItemResponse::id).toList());
+        assertEquals(0, service.search("notebook cadeira", 0, 10).totalItems());
+        assertEquals(0, service.search("  ", 0, 10).totalItems());
+
+        PagedResponse<ItemResponse> pagina2 = service.search("notebook", 1, 1);
+        assertEquals(List.of(mouse.id()), pagina2.items().stream().map(ItemResponse::id).toList());
+        assertEquals(2, pagina2.totalPages());
+
+        // índice acompanha update e delete sem reconstrução
+        service.update(notebook.id(), new ItemRequest("Ultrabook", "Portátil", "ATIVO", 1.0, "ELETR"));
+        assertEquals(List.of(mouse.id()),
+                service.search("notebook", 0, 10).items().stream().map(ItemResponse::id).toList());
+        assertEquals(1, service.search("portatil", 0, 10).totalItems());
+        service.delete(mouse.id());
+        assertEquals(0, service.search("notebook", 0, 10).totalItems());
+    }
+
+    @Test
+    void paginasDaBuscaSaoFatiasDoMesmoRankingComTotalDeTodosOsAcertos() {
+        // relevância = quantas vezes "teclado" aparece na descrição; empates saem por id
+        List<Long> esperado = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ItemResponse item = service.create(new ItemRequest("Item " + i, "teclado ".repeat(1 + i % 5), "ATIVO", 1.0, "GERAL"));
+            esperado.add(item.id());
+        }
+        esperado.sort(Comparator.comparingLong((Long id) -> -((id - 1) % 5)).thenComparing(id -> id));
+
+        List<Long> paginas = new ArrayList<>();
+        for (int page = 0; page < 8; page++) {
+            PagedResponse<ItemResponse> resultado = service.search("tecl", page, 7);
+            assertEquals(50, resultado.totalItems());
+            assertEquals(8, resultado.totalPages());
+            resultado.items().forEach(it -> paginas.add(it.id()));
+        }
+        assertEquals(esperado, paginas);
+        assertTrue(service.search("tecl", 8, 7).items().isEmpty());
+        assertEquals(50, service.search("tecl", 0, 0).totalItems());
+    }
+
+    @Test
+    void exportaVisaoConsistenteMesmoComEscritasDuranteAExportacao() {
+        for (int i = 1; i <= 3000; i++) service.create(req("I" + i, i));
+        service.delete(10L);
+
+        List<ItemResponse> exported = new ArrayList<>();
+        long count = service.export(item -> {
+            if (exported.isEmpty()) {
+                // escritas concorrentes em itens ainda não exportados
+                service.update(2500L, req("Alterado", 0.0));
+                service.delete(1500L);
+                service.delete(2L);
+                service.create(req("Novo", 0.0));
+            }
+            exported.add(item);
+        });
+
+        assertEquals(2999, count);
+        assertEquals(2999, exported.size());
+        long previous = 0;
+        for (ItemResponse item : exported) {
+            assertTrue(item.id() > previous);
+            previous = item.id();
+            assertEquals("I" + item.id(), item.nome());
+        }
+        assertEquals(3000L, exported.get(exported.size() - 1).id());
+
+        // o estado atual reflete as escritas
+        assertEquals("Alterado", service.get(2500L).nome());
+        assertThrows(ItemNotFoundException.class, () -> service.get(1500L));
+        assertEquals(2998, service.list(0, 0).totalItems());
+    }
+
+    @Test
+    void versoesCrescemEUpdateCondicionalDetectaConflito() {
+        long inicio = service.modificationCount();
+        ItemResponse created = service.create(req("A", 1.0));
+        long v1 = service.getVersioned(created.id()).version();
+        assertTrue(v1 > inicio);
+        assertEquals(v1, service.modificationCount());
+
+        service.update(created.id(), req("B", 2.0), v1);
+        long v2 = service.getVersioned(created.id()).version();
+        assertTrue(v2 > v1);
+
+        // versão antiga: conflito e nada muda
+        assertThrows(VersionConflictException.class, () -> service.update(created.id(), req("C", 3.0), v1));
+        assertEquals("B", service.get(created.id()).nome());
+        assertEquals(v2, service.modificationCount());
+
+        service.delete(created.id());
+        assertTrue(service.modificationCount() > v2);
+        assertThrows(ItemNotFoundException.class, () -> service.getVersioned(created.id()));
+        assertThrows(ItemNotFoundException.class, () -> service.update(created.id(), req("D", 4.0), v2));
+    }
+
+    @Test
+    void patchAlteraSoOsCamposEnviadosEApagaOsNulos() {
+        ItemResponse created = service.create(new ItemRequest("Mouse", "RGB", "ATIVO", 100.0, "ACESSORIOS"));
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("preco", 80);
+        changes.put("descricao", null);
+
+        ItemResponse patched = service.patch(created.id(), ItemPatch.of(changes));
+        assertEquals(new ItemResponse(created.id(), "Mouse", null, "ATIVO", 80.0, "ACESSORIOS",
+                created.createdAt(), patched.updatedAt()), patched);
+        assertEquals(patched, service.get(created.id()));
+        assertEquals(List.of(created.id()), service.list(0, 10, new ItemFilter(null, null, 80.0, 80.0))
+                .items().stream().map(ItemResponse::id).toList());
+
+        long version = service.getVersioned(created.id()).version();
+        assertThrows(VersionConflictException.class,
+                () -> service.patch(created.id(), ItemPatch.of(Map.of("status", "INATIVO")), version - 1));
+        assertEquals("ATIVO", service.get(created.id()).status());
+        assertThrows(InvalidPatchException.class, () -> ItemPatch.of(Map.of("id", 5)));
+        assertThrows(InvalidPatchException.class, () -> ItemPatch.of(Map.of("preco", "caro")));
+        assertThrows(ItemNotFoundException.class, () -> service.patch(999_999L, ItemPatch.of(Map.of("nome", "X"))));
+    }
+
+    @Test
+    void patchesConcorrentesEmCamposDiferentesNaoSePerdem() throws InterruptedException {
+        ItemResponse created = service.create(req("Inicial", 0.0));
+        int rounds = 2_000;
+        Thread nomes = new Thread(() -> {
+            for (int i = 1; i <= rounds; i++) service.patch(created.id(), ItemPatch.of(Map.of("nome", "N" + i)));
+        });
+        Thread precos = new Thread(() -> {
+            for (int i = 1; i <= rounds; i++) service.patch(created.id(), ItemPatch.of(Map.of("preco", i)));
+        });
+        nomes.start();
+        precos.start();
+        nomes.join();
+        precos.join();
+
+        // cada patch partiu do estado atual: nenhum dos dois campos voltou atrás
+        ItemResponse finalItem = service.get(created.id());
+        assertEquals("N" + rounds, finalItem.nome());
+        assertEquals((double) rounds, finalItem.preco());
+    }
+
+    @Test
+    void estatisticasAcompanhamCriacaoAtualizacaoERemocao() {
+        ItemResponse barato = service.create(new ItemRequest("A", "Desc", "ATIVO", 10.0, "ELETR"));
+        service.create(new ItemRequest("B", "Desc", "ATIVO", 30.0, "ELETR"));
+        ItemResponse caro = service.create(new ItemRequest("C", "Desc", "INATIVO", 50.0, "ELETR"));
+        service.create(new ItemRequest("D", "Desc", "ATIVO", null, null));
+
+        ItemStatsResponse stats = service.stats();
+        assertEquals(4, stats.totalItems());
+        GroupStats eletr = stats.categorias().get(0);
+        assertEquals(new GroupStats("ELETR", 3, 3, 90.0, 10.0, 50.0, 30.0), eletr);
+        assertEquals(new GroupStats(null, 1, 0, 0, null, null, null), stats.categorias().get(1));
+        assertEquals(List.of("ATIVO", "INATIVO"), stats.status().stream().map(GroupStats::value).toList());
+        assertEquals(3, stats.status().get(0).count());
+
+        // mínimo e máximo precisam ser recalculados quando o extremo sai
+        service.delete(caro.id());
+        service.update(barato.id(), new ItemRequest("A", "Desc", "INATIVO", 20.0, "ELETR"));
+        stats = service.stats();
+        assertEquals(new GroupStats("ELETR", 2, 2, 50.0, 20.0, 30.0, 25.0), stats.categorias().get(0));
+        assertEquals(new GroupStats("INATIVO", 1, 1, 20.0, 20.0, 20.0, 20.0), stats.status().get(1));
+    }
+
+    @Test
+    void estatisticasSaoConsistentesComEscritasConcorrentes() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            String categoria = "C" + t;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; running.get(); i++) {
+                    ItemResponse item = service.create(new ItemRequest("x", "d", "ATIVO", (double) i, categoria));
+                    service.update(item.id(), new ItemRequest("x", "d", "INATIVO", i + 1.0, "C9"));
+                    if (i % 2 == 0) service.delete(item.id());
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            ItemStatsResponse stats = service.stats();
+            assertEquals(stats.totalItems(), stats.status().stream().mapToLong(GroupStats::count).sum());
+        }
+        running.set(false);
+        for (Thread w : writers) w.join();
+        ItemStatsResponse stats = service.stats();
+        assertEquals(service.list(0, 1).totalItems(), stats.totalItems());
+        assertEquals(stats.totalItems(), stats.status().stream().mapToLong(GroupStats::count).sum());
+    }
+
+    @Test
+    void journalQueFalhaImpedeAMutacaoEListenerQueFalhaNaoBloqueiaOsOutros() {
+        ItemResponse item = service.create(req("Original", 1.0));
+        long version = service.getVersioned(item.id()).version();
+        List<ItemChange> received = new ArrayList<>();
+        service.addListener(change -> { throw new IllegalStateException("listener quebrado"); });
+        service.addListener(received::add);
+
+        service.setJournal(change -> { throw new IllegalStateException("disco cheio"); });
+        assertThrows(IllegalStateException.class, () -> service.update(item.id(), req("Alterado", 2.0)));
+        assertThrows(IllegalStateException.class, () -> service.delete(item.id()));
+        assertThrows(IllegalStateException.class, () -> service.create(req("Novo", 3.0)));
+        assertEquals(item, service.get(item.id()));
+        assertEquals(version, service.getVersioned(item.id()).version());
+        assertEquals(1, service.list(0, 10).totalItems());
+        assertEquals(1, service.stats().totalItems());
+        assertTrue(received.isEmpty());
+
+        List<ItemChange> journaled = new ArrayList<>();
+        service.setJournal(journaled::add);
+        service.update(item.id(), req("Alterado", 2.0));
+        assertEquals(List.of(ItemChange.Type.UPDATED), journaled.stream().map(ItemChange::type).toList());
+        assertEquals(journaled, received);
+        assertEquals("Alterado", service.get(item.id()).nome());
+    }
 }
@@ -0,0 +1,145 @@
+package com.claudiobianco.java.renderapi.persistence;
+
+import com.claudiobianco.java.renderapi.domain.ItemNotFoundException;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.persistence.PersistenceProperties.FsyncPolicy;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private ItemRequest req(String nome, Double preco) {
+        return new ItemRequest(nome, "Descrição com acentuação", "ATIVO", preco, "GERAL");
+    }
+
+    private ItemJournal start(ItemService service, FsyncPolicy fsync) throws Exception {
+        ItemJournal journal = new ItemJournal(service,
+                new PersistenceProperties(true, dir, fsync, Duration.ofMillis(10), Duration.ofHours(1)));
+        journal.start();
+        return journal;
+    }
+
+    private List<String> files() throws Exception {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void recuperaEstadoEGeradorDeIdsAposRestart() throws Exception {
+        ItemService service = new ItemService();
+        ItemJournal journal = start(service, FsyncPolicy.ALWAYS);
+        ItemResponse a = service.create(req("A", 1.0));
+        ItemResponse b = service.create(req("B", null));
+        ItemResponse c = service.create(req("C", 3.0));
+        service.update(a.id(), req("A2", 10.0));
+        service.delete(c.id());
+        journal.close();
+
+        ItemService restarted = new ItemService();
+        ItemJournal journal2 = start(restarted, FsyncPolicy.ALWAYS);
+        assertEquals(a.createdAt(), restarted.get(a.id()).createdAt());
+        assertEquals("A2", restarted.get(a.id()).nome());
+        assertEquals(10.0, restarted.get(a.id()).preco());
+        assertEquals(b, restarted.get(b.id()));
+        assertThrows(ItemNotFoundException.class, () -> restarted.get(c.id()));
+        assertEquals(2, restarted.list(0, 10).totalItems());
+        // o id do item removido não pode ser reutilizado
+        assertEquals(c.id() + 1, restarted.create(req("D", 4.0)).id());
+        journal2.close();
+    }
+
+    @Test
+    void snapshotDescartaSegmentosAntigosERecuperaComCauda() throws Exception {
+        ItemService service = new ItemService();
+        ItemJournal journal = start(service, FsyncPolicy.INTERVAL);
+        for (int i = 0; i < 5_000; i++) service.create(req("I" + i, (double) i));
+        journal.snapshot();
+        service.update(1L, req("Depois do snapshot", 0.5));
+        service.delete(2L);
+        journal.close();
+
+        assertEquals(List.of("snapshot-0000000000000002.bin", "wal-0000000000000002.log"), files());
+
+        ItemService restarted = new ItemService();
+        ItemJournal journal2 = start(restarted, FsyncPolicy.NEVER);
+        assertEquals(4_999, restarted.list(0, 0).totalItems());
+        assertEquals("Depois do snapshot", restarted.get(1L).nome());
+        assertThrows(ItemNotFoundException.class, () -> restarted.get(2L));
+        assertEquals(5_000, restarted.lastId());
+        journal2.close();
+    }
+
+    @Test
+    void registroIncompletoNoFimDoWalEDescartado() throws Exception {
+        ItemService service = new ItemService();
+        ItemJournal journal = start(service, FsyncPolicy.ALWAYS);
+        service.create(req("A", 1.0));
+        service.create(req("B", 2.0));
+        journal.close();
+
+        // simula crash no meio da escrita do segundo registro
+        Path wal = dir.resolve("wal-0000000000000001.log");
+        long full = Files.size(wal);
+        try (FileChannel ch = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+            ch.truncate(full - 5);
+        }
+
+        ItemService restarted = new ItemService();
+        ItemJournal journal2 = start(restarted, FsyncPolicy.ALWAYS);
+        assertEquals(1, restarted.list(0, 0).totalItems());
+        assertEquals("A", restarted.get(1L).nome());
+        assertTrue(Files.size(wal) < full - 5);
+        journal2.close();
+    }
+
+    @Test
+    void depoisDeUmErroDeIoNenhumaEscritaFicaEsperandoParaSempre() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(dir, 1, FsyncPolicy.ALWAYS, Duration.ofMillis(10));
+        wal.append(new byte[]{1});
+        // o próximo segmento não pode ser aberto: o roll falha com IOException no writer
+        Files.createDirectory(WriteAheadLog.segment(dir, 2));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            List<Thread> writers = new ArrayList<>();
+            AtomicInteger failed = new AtomicInteger();
+            for (int t = 0; t < 4; t++) {
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        try {
+                            wal.append(new byte[]{2});
+                        } catch (UncheckedIOException e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            assertThrows(UncheckedIOException.class, wal::roll);
+            for (Thread w : writers) w.join();
+            assertTrue(failed.get() > 0);
+            assertThrows(UncheckedIOException.class, () -> wal.append(new byte[]{3}));
+            assertThrows(UncheckedIOException.class, wal::sync);
+            wal.close();
+        });
+    }
+}
@@ -0,0 +1,157 @@
+package com.claudiobianco.java.renderapi.replication;
+
+import com.claudiobianco.java.renderapi.domain.ItemNotFoundException;
+import com.claudiobianco.java.renderapi.domain.ItemPatch;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationTest {
+
+    private final List<AutoCloseable> started = new ArrayList<>();
+
+    @AfterEach
+    void para() throws Exception {
+        for (int i = started.size() - 1; i >= 0; i--) started.get(i).close();
+    }
+
+    private ItemRequest req(String nome, Double preco) {
+        return new ItemRequest(nome, "Descrição", "ATIVO", preco, "GERAL");
+    }
+
+    private ReplicationLeader leader(ItemService service, int backlog) throws Exception {
+        ReplicationLeader leader = new ReplicationLeader(service, new ReplicationProperties(
+                ReplicationProperties.Role.LEADER, 0, null, null, backlog, Duration.ofMillis(50), Duration.ofMillis(50)));
+        leader.start();
+        started.add(leader::close);
+        return leader;
+    }
+
+    private ReplicationFollower follower(ItemService service, ReplicationLeader leader, Duration reconnect) {
+        ReplicationFollower follower = new ReplicationFollower(service, new ReplicationProperties(
+                ReplicationProperties.Role.FOLLOWER, 0, "localhost:" + leader.port(), null, 0,
+                Duration.ofMillis(50), reconnect));
+        follower.start();
+        started.add(follower::close);
+        return follower;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "réplica não alcançou o líder");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitInSync(ItemService leader, ItemService replica, ReplicationFollower follower) throws InterruptedException {
+        await(() -> follower.connected() && follower.lag() == 0
+                && replica.listAfter(0, 10_000).items().equals(leader.listAfter(0, 10_000).items()));
+    }
+
+    @Test
+    void replicaRecebeSnapshotEDepoisOStreamDeMudancas() throws Exception {
+        ItemService primary = new ItemService();
+        for (int i = 0; i < 100; i++) primary.create(req("Item " + i, (double) i));
+        ReplicationLeader leader = leader(primary, 1024);
+
+        ItemService replica = new ItemService();
+        ReplicationFollower follower = follower(replica, leader, Duration.ofMillis(50));
+        awaitInSync(primary, replica, follower);
+        assertEquals(100, replica.list(0, 0).totalItems());
+
+        ItemResponse created = primary.create(req("Novo", 1.0));
+        primary.update(1L, req("Alterado", 2.0));
+        primary.patch(2L, ItemPatch.of(Map.of("status", "INATIVO")));
+        primary.delete(3L);
+        awaitInSync(primary, replica, follower);
+
+        assertEquals(created, replica.get(created.id()));
+        assertEquals("Alterado", replica.get(1L).nome());
+        assertEquals("INATIVO", replica.get(2L).status());
+        assertThrows(ItemNotFoundException.class, () -> replica.get(3L));
+        // leituras derivadas (índices e busca) também acompanham
+        assertEquals(1, replica.search("Alterado", 0, 10).totalItems());
+        assertEquals(0, follower.lag());
+        // o gerador da réplica nunca fica atrás do líder
+        assertTrue(replica.lastId() >= primary.lastId());
+    }
+
+    @Test
+    void reconexaoContinuaDoBacklogOuRefazOSnapshot() throws Exception {
+        ItemService primary = new ItemService();
+        for (int i = 0; i < 10; i++) primary.create(req("Item " + i, (double) i));
+        ReplicationLeader leader = leader(primary, 8);
+
+        ItemService replica = new ItemService();
+        // reconexão lenta o bastante para as mudanças abaixo acontecerem com a réplica fora
+        ReplicationFollower follower = follower(replica, leader, Duration.ofMillis(300));
+        awaitInSync(primary, replica, follower);
+        assertEquals(1, snapshots(follower));
+
+        // poucas mudanças com a réplica fora: continua do backlog, sem snapshot
+        follower.disconnect();
+        primary.update(1L, req("Fora 1", 1.0));
+        primary.delete(2L);
+        awaitInSync(primary, replica, follower);
+        assertEquals(1, snapshots(follower));
+        assertThrows(ItemNotFoundException.class, () -> replica.get(2L));
+
+        // mais mudanças do que o backlog guarda: snapshot, que também remove o que sumiu no líder
+        follower.disconnect();
+        for (long id = 3; id <= 8; id++) primary.delete(id);
+        for (int i = 0; i < 10; i++) primary.create(req("Depois " + i, null));
+        awaitInSync(primary, replica, follower);
+        assertEquals(2, snapshots(follower));
+        assertEquals(primary.list(0, 0).totalItems(), replica.list(0, 0).totalItems());
+        assertThrows(ItemNotFoundException.class, () -> replica.get(5L));
+    }
+
+    private static long snapshots(ReplicationFollower follower) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        follower.bindTo(registry);
+        return (long) registry.get("items.replication.snapshots").functionCounter().count();
+    }
+
+    @Test
+    void escritaNaReplicaVaiParaOLiderOuEhRecusada() throws Exception {
+        ReplicationProperties redirect = new ReplicationProperties(ReplicationProperties.Role.FOLLOWER, 7070,
+                "lider:7070", "http://lider:8080/", 16, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        FollowerWriteFilter filter = new FollowerWriteFilter(redirect, new ObjectMapper());
+
+        MockHttpServletRequest patch = new MockHttpServletRequest("PATCH", "/api/v1/items/7");
+        patch.setQueryString("x=1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(patch, response, new MockFilterChain());
+        assertEquals(307, response.getStatus());
+        assertEquals("http://lider:8080/api/v1/items/7?x=1", response.getHeader("Location"));
+
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/items/7"), read, new MockFilterChain());
+        assertEquals(200, read.getStatus());
+
+        ReplicationProperties readOnly = new ReplicationProperties(ReplicationProperties.Role.FOLLOWER, 7070,
+                "lider:7070", null, 16, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        new FollowerWriteFilter(readOnly, new ObjectMapper())
+                .doFilter(new MockHttpServletRequest("POST", "/api/v1/items:batch"), refused, new MockFilterChain());
+        assertEquals(503, refused.getStatus());
+        assertTrue(refused.getContentAsString().contains("READ_ONLY_REPLICA"));
+    }
+}
@@ -0,0 +1,182 @@
+package com.claudiobianco.java.renderapi.web;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogFilterTest {
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger("access");
+
+    @BeforeEach
+    void captura() {
+        appender.start();
+        accessLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void solta() {
+        accessLogger.detachAppender(appender);
+    }
+
+    private static final HttpServlet SERVLET = new HttpServlet() {
+        @Override
+        protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setStatus(201);
+            resp.getOutputStream().write("{\"ok\":true}".getBytes());
+        }
+    };
+
+    private void request(AccessLogFilter filter, String path) throws Exception {
+        filter.doFilter(new MockHttpServletRequest("POST", path), new MockHttpServletResponse(), new MockFilterChain(SERVLET));
+    }
+
+    private List<String> waitForLines(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (appender.list.size() < expected && System.nanoTime() < deadline) Thread.sleep(10);
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+
+    @Test
+    void registraEventoEstruturadoForaDaThreadDaRequisicao() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(new AccessLogProperties(true, 1.0, Map.of(), 16));
+        request(filter, "/api/v1/items");
+
+        List<String> lines = waitForLines(1);
+        filter.close();
+
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).matches("method=POST path=/api/v1/items status=201 latencyMicros=\\d+ bytes=11"), lines.get(0));
+        assertEquals("access-log-writer", appender.list.get(0).getThreadName());
+    }
+
+    @Test
+    void registraTimeoutDoAsyncEExcecaoComMarcaDeErro() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(new AccessLogProperties(true, 1.0, Map.of(), 16));
+        MockHttpServletRequest async = new MockHttpServletRequest("GET", "/api/v1/items/export");
+        async.setAsyncSupported(true);
+        MockHttpServletResponse asyncResponse = new MockHttpServletResponse();
+        filter.doFilter(async, asyncResponse, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                req.startAsync();
+            }
+        }));
+        // o container avisa o timeout, a resposta vira 503 e só então completa
+        MockAsyncContext context = (MockAsyncContext) async.getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) listener.onTimeout(new AsyncEvent(context));
+        asyncResponse.setStatus(503);
+        context.complete();
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/items/1"),
+                new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                        throw new IllegalStateException("falhou");
+                    }
+                })));
+
+        List<String> lines = waitForLines(2);
+        filter.close();
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("method=GET path=/api/v1/items/export status=503 latencyMicros=\\d+ bytes=-1 error=timeout"), lines.get(0));
+        assertTrue(lines.get(1).matches("method=GET path=/api/v1/items/1 status=500 latencyMicros=\\d+ bytes=-1 error=IllegalStateException"), lines.get(1));
+    }
+
+    @Test
+    void aplicaATaxaDoPrimeiroPadraoQueCasa() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(new AccessLogProperties(true, 1.0,
+                Map.of("/api/v1/hello", 0.0), 16));
+        request(filter, "/api/v1/hello");
+        request(filter, "/api/v1/items/7");
+
+        List<String> lines = waitForLines(1);
+        Thread.sleep(50);
+        filter.close();
+
+        assertEquals(1, appender.list.size());
+        assertTrue(lines.get(0).contains("path=/api/v1/items/7"));
+    }
+
+    @Test
+    void bufferCheioDescartaEContaSemBloquear() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(new AccessLogProperties(true, 1.0, Map.of(), 4));
+        // sem o writer ninguém esvazia o buffer
+        filter.close();
+
+        for (int i = 0; i < 10; i++) request(filter, "/api/v1/items");
+
+        assertEquals(6, filter.dropped());
+    }
+
+    @Test
+    void bufferNaoPerdeNemDuplicaComVariosProdutores() throws Exception {
+        AccessLogBuffer<Integer> buffer = new AccessLogBuffer<>(1 << 16);
+        int producers = 4;
+        int perProducer = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < perProducer; i++) assertTrue(buffer.offer(base + i));
+            }));
+        }
+        Set<Integer> seen = new HashSet<>();
+        while (seen.size() < producers * perProducer) {
+            Integer item = buffer.poll();
+            if (item != null) assertTrue(seen.add(item));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        assertNull(buffer.poll());
+        assertEquals(4, new AccessLogBuffer<>(3).capacity());
+    }
+
+    @Test
+    void registraRecusaDoControleDeAdmissaoComMarcaDeSobrecarga() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(new AccessLogProperties(true, 1.0, Map.of(), 16));
+        AdmissionControlFilter admission = new AdmissionControlFilter(new AdmissionProperties(true, 4, 4, 4, 2.0, 0.9,
+                Duration.ofMillis(100), 20, 503, Duration.ofSeconds(1)), new ObjectMapper());
+        for (int i = 0; i < 4; i++) assertTrue(admission.limit().tryAcquire(1.0));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/items/1"), new MockHttpServletResponse(),
+                new MockFilterChain(SERVLET, admission));
+
+        List<String> lines = waitForLines(1);
+        filter.close();
+        assertTrue(lines.get(0).matches("method=GET path=/api/v1/items/1 status=503 latencyMicros=\\d+ bytes=\\d+ error=overloaded"),
+                lines.get(0));
+    }
+}
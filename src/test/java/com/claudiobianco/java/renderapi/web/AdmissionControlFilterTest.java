@@ -0,0 +1,113 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.web.AdmissionControlFilter.Priority;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private AdaptiveLimit limit(int initial) {
+        return new AdaptiveLimit(initial, 2, 50, 2.0, 0.5, 100 * MS, 10, 0);
+    }
+
+    /** Uma janela de 10 amostras com a latência dada, com {@code busy} requisições em andamento. */
+    private long window(AdaptiveLimit limit, long now, long latency, int busy) {
+        for (int i = 0; i < busy; i++) assertTrue(limit.tryAcquire(1.0));
+        for (int i = 0; i < 10; i++) {
+            if (i >= busy) assertTrue(limit.tryAcquire(1.0));
+            limit.release(latency, now + 100 * MS);
+        }
+        return now + 100 * MS;
+    }
+
+    @Test
+    void limiteSobeComLatenciaEstavelECaiQuandoAFilaCresce() {
+        AdaptiveLimit limit = limit(10);
+        long now = 0;
+        for (int i = 0; i < 5; i++) now = window(limit, now, 2 * MS, 10);
+        assertEquals(15, limit.limit());
+        assertEquals(0, limit.inFlight());
+
+        // latência acima de 2x a linha de base: corte multiplicativo, até o piso
+        now = window(limit, now, 10 * MS, 10);
+        assertEquals(7, limit.limit());
+        for (int i = 0; i < 5; i++) now = window(limit, now, 10 * MS, 2);
+        assertEquals(2, limit.limit());
+        // a linha de base só sobe devagar, mesmo com a latência alta por várias janelas
+        assertEquals(0.002, limit.baselineSeconds(), 0.001);
+    }
+
+    @Test
+    void limiteOciosoNaoCresce() {
+        AdaptiveLimit limit = limit(10);
+        long now = 0;
+        // uma requisição por vez nunca chega à metade do limite
+        for (int i = 0; i < 5; i++) now = window(limit, now, 2 * MS, 1);
+        assertEquals(10, limit.limit());
+    }
+
+    @Test
+    void prioridadesUsamFracoesDoLimite() {
+        AdaptiveLimit limit = limit(10);
+        for (int i = 0; i < 5; i++) assertTrue(limit.tryAcquire(Priority.LOW.share));
+        assertFalse(limit.tryAcquire(Priority.LOW.share));
+        for (int i = 0; i < 3; i++) assertTrue(limit.tryAcquire(Priority.NORMAL.share));
+        assertFalse(limit.tryAcquire(Priority.NORMAL.share));
+        assertTrue(limit.tryAcquire(Priority.HIGH.share));
+        assertTrue(limit.tryAcquire(Priority.HIGH.share));
+        assertFalse(limit.tryAcquire(Priority.HIGH.share));
+    }
+
+    @Test
+    void classificaAsRotasDeItens() {
+        assertEquals(Priority.HIGH, AdmissionControlFilter.priority("GET", "/api/v1/items/42"));
+        assertEquals(Priority.HIGH, AdmissionControlFilter.priority("GET", "/api/v1/items/stats"));
+        assertEquals(Priority.LOW, AdmissionControlFilter.priority("GET", "/api/v1/items"));
+        assertEquals(Priority.LOW, AdmissionControlFilter.priority("GET", "/api/v1/items/search"));
+        assertEquals(Priority.LOW, AdmissionControlFilter.priority("GET", "/api/v1/items/export"));
+        assertEquals(Priority.LOW, AdmissionControlFilter.priority("POST", "/api/v1/items/import"));
+        assertEquals(Priority.LOW, AdmissionControlFilter.priority("POST", "/api/v1/items:batch"));
+        assertEquals(Priority.NORMAL, AdmissionControlFilter.priority("POST", "/api/v1/items"));
+        assertEquals(Priority.NORMAL, AdmissionControlFilter.priority("PATCH", "/api/v1/items/42"));
+        assertEquals(Priority.NORMAL, AdmissionControlFilter.priority("DELETE", "/api/v1/items/42"));
+    }
+
+    @Test
+    void recusaNaHoraComRetryAfterQuandoOLimiteEstaCheio() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(new AdmissionProperties(true, 4, 4, 4, 2.0, 0.9,
+                Duration.ofMillis(100), 20, 429, Duration.ofMillis(1500)), new ObjectMapper());
+        for (int i = 0; i < 2; i++) assertTrue(filter.limit().tryAcquire(1.0));
+
+        MockHttpServletResponse list = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/items"), list, new MockFilterChain());
+        assertEquals(429, list.getStatus());
+        assertEquals("2", list.getHeader("Retry-After"));
+        assertTrue(list.getContentAsString().contains("OVERLOADED"));
+        assertEquals(1, filter.rejected(Priority.LOW));
+
+        // a leitura por id ainda tem vaga, e a libera ao terminar
+        MockHttpServletResponse get = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/items/1"), get, new MockFilterChain());
+        assertEquals(200, get.getStatus());
+        assertEquals(2, filter.limit().inFlight());
+
+        // fora da API de itens e no feed de mudanças não há limite
+        for (int i = 0; i < 2; i++) assertTrue(filter.limit().tryAcquire(1.0));
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health, new MockFilterChain());
+        assertEquals(200, health.getStatus());
+        MockHttpServletResponse changes = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/items/changes"), changes, new MockFilterChain());
+        assertEquals(200, changes.getStatus());
+    }
+}
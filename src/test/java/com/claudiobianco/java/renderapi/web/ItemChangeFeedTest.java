@@ -0,0 +1,197 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemChange;
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.ItemChangeEvent;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "items.changes.capacity=8")
+class ItemChangeFeedTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ItemService service;
+
+    @Autowired
+    ItemChangeFeed feed;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private ItemRequest req(String nome) {
+        return new ItemRequest(nome, "Desc", "ATIVO", 10.0, "GERAL");
+    }
+
+    /** Abre o stream e devolve os primeiros {@code count} eventos, cada um como "nome|id|data". */
+    private List<String> events(String query, int count) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/items/changes" + query))
+                .timeout(Duration.ofSeconds(10)).build();
+        HttpResponse<java.io.InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+        List<String> events = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String name = null, id = null, data = null;
+            for (String line; events.size() < count && (line = reader.readLine()) != null; ) {
+                if (line.startsWith("event:")) name = line.substring(6);
+                else if (line.startsWith("id:")) id = line.substring(3);
+                else if (line.startsWith("data:")) data = line.substring(5);
+                else if (line.isEmpty() && name != null) {
+                    events.add(name + "|" + id + "|" + data);
+                    name = id = data = null;
+                }
+            }
+        }
+        return events;
+    }
+
+    @Test
+    void reproduzMudancasDesdeASequenciaPedidaEmOrdem() throws Exception {
+        long since = feed.lastSequence();
+        ItemResponse a = service.create(req("A"));
+        service.update(a.id(), req("A2"));
+        service.delete(a.id());
+
+        List<String> events = events("?since=" + since, 3);
+        assertEquals(3, events.size());
+        assertTrue(events.get(0).startsWith("change|" + (since + 1) + "|"), events.get(0));
+        assertTrue(events.get(0).contains("\"type\":\"CREATED\""), events.get(0));
+        assertTrue(events.get(1).contains("\"type\":\"UPDATED\"") && events.get(1).contains("\"nome\":\"A2\""), events.get(1));
+        assertTrue(events.get(2).contains("\"type\":\"DELETED\"") && events.get(2).contains("\"item\":null"), events.get(2));
+    }
+
+    @Test
+    void enviaMudancasNovasParaQuemJaEstaAssinando() throws Exception {
+        long since = feed.lastSequence();
+        Thread writer = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                return;
+            }
+            service.create(req("Novo"));
+        });
+        writer.start();
+
+        // Last-Event-ID tem precedência sobre since
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/items/changes?since=0"))
+                .header("Last-Event-ID", Long.toString(since)).timeout(Duration.ofSeconds(10)).build();
+        HttpResponse<java.util.stream.Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        String data = response.body().filter(l -> l.startsWith("data:")).findFirst().orElseThrow();
+        writer.join();
+        assertTrue(data.contains("\"nome\":\"Novo\""), data);
+        assertTrue(data.contains("\"seq\":" + (since + 1)), data);
+    }
+
+    @Test
+    void mandaResetQuandoOClienteFicouAlemDoQueOLogGuarda() throws Exception {
+        for (int i = 0; i < 20; i++) service.create(req("I" + i));
+        long last = feed.lastSequence();
+
+        List<String> events = events("?since=0", 1);
+        assertEquals("reset|" + last + "|{\"seq\":" + last + "}", events.get(0));
+    }
+
+    @Test
+    void clienteParadoPrendeUmaThreadSoAteOTimeoutEOsOutrosSeguem() throws Exception {
+        ItemService local = new ItemService();
+        // uma thread só: enquanto o lento a prende, o rápido espera na fila
+        ItemChangeFeed slowFeed = new ItemChangeFeed(local, 64, Duration.ofMinutes(1), Duration.ofMillis(50), Duration.ofMillis(300), 1);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        CountDownLatch released = new CountDownLatch(1);
+        AtomicInteger changes = new AtomicInteger();
+        SseEmitter stuck = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                try {
+                    // buffer TCP cheio: o write só sai quando a thread é interrompida
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    released.countDown();
+                    throw new InterruptedIOException();
+                } finally {
+                    inside.decrementAndGet();
+                }
+            }
+        };
+        SseEmitter fast = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                // heartbeat é só o comentário; change tem cabeçalho, dados e fim
+                if (builder.build().size() > 1) changes.incrementAndGet();
+            }
+        };
+        try {
+            slowFeed.subscribe(stuck, 0L);
+            slowFeed.subscribe(fast, 0L);
+            for (int i = 0; i < 5; i++) local.create(req("I" + i));
+
+            // heartbeats e novas mudanças não abrem outra thread para o mesmo assinante
+            assertTrue(released.await(5, TimeUnit.SECONDS), "envio parado não foi interrompido");
+            assertEquals(1, maxInside.get());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (changes.get() < 5) {
+                assertTrue(System.nanoTime() < deadline, "assinante rápido não recebeu: " + changes);
+                Thread.sleep(10);
+            }
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            slowFeed.bindTo(registry);
+            assertEquals(1.0, registry.get("items.changes.stalled").functionCounter().count());
+            assertEquals(1.0, registry.get("items.changes.subscribers").gauge().value());
+            assertEquals(1, slowFeed.senderThreads());
+        } finally {
+            slowFeed.close();
+        }
+    }
+
+    @Test
+    void logPublicaEmOrdemSemBuracosComEscritasConcorrentes() throws Exception {
+        ItemChangeLog changes = new ItemChangeLog(1 << 16);
+        ItemChange change = new ItemChange(ItemChange.Type.DELETED, 1L, null, null);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) changes.append(change);
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread w : writers) w.join();
+
+        assertEquals(40_000, changes.last());
+        long seq = 0;
+        for (List<ItemChangeEvent> page = changes.after(0, 1000); !page.isEmpty(); page = changes.after(seq, 1000)) {
+            for (ItemChangeEvent event : page) assertEquals(++seq, event.seq());
+        }
+        assertEquals(40_000, seq);
+    }
+}
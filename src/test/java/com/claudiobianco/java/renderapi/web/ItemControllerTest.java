@@ -1,11 +1,25 @@
 package com.claudiobianco.java.renderapi.web;
 
+import com.claudiobianco.java.renderapi.domain.ItemFilter;
 import com.claudiobianco.java.renderapi.domain.ItemNotFoundException;
+import com.claudiobianco.java.renderapi.domain.ItemPatch;
 import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.domain.VersionConflictException;
+import com.claudiobianco.java.renderapi.domain.VersionedItem;
+import com.claudiobianco.java.renderapi.web.dto.BatchResponse;
+import com.claudiobianco.java.renderapi.web.dto.BatchResult;
+import com.claudiobianco.java.renderapi.web.dto.CursorPage;
+import com.claudiobianco.java.renderapi.web.dto.GroupStats;
+import com.claudiobianco.java.renderapi.web.dto.ImportError;
+import com.claudiobianco.java.renderapi.web.dto.ImportSummary;
 import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
 import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.claudiobianco.java.renderapi.web.dto.ItemStatsResponse;
 import com.claudiobianco.java.renderapi.web.dto.PagedResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +28,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.aMapWithSize;
@@ -24,20 +46,30 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(controllers = ItemController.class)
-@Import(ApiExceptionHandler.class)
+@WebMvcTest(controllers = {ItemController.class, ItemBatchController.class})
+@Import({ApiExceptionHandler.class, ItemJsonCache.class, ItemChangeFeed.class})
 class ItemControllerTest {
 
     @Autowired
@@ -49,6 +81,18 @@ class ItemControllerTest {
     @MockBean
     ItemService service;
 
+    @MockBean
+    ItemImporter importer;
+
+    @Autowired
+    ItemJsonCache cache;
+
+    @BeforeEach
+    void limparCache() {
+        // o contexto é reaproveitado entre os testes, o cache também
+        cache.clear();
+    }
+
     private ItemResponse resp(Long id, String nome) {
         return new ItemResponse(
                 id, nome, "Descricao", "ATIVO", 123.45, "GERAL",
@@ -92,10 +136,98 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.totalPages", is(1)));
     }
 
+    @Test
+    @DisplayName("GET /api/v1/items?categoria=...&precoMin=... - deve repassar os filtros")
+    void deveListarComFiltros() throws Exception {
+        PagedResponse<ItemResponse> page = new PagedResponse<>(List.of(resp(1L, "A")), 0, 10, 1, 1);
+        when(service.list(0, 10, new ItemFilter("GERAL", "ATIVO", 100.0, 200.0))).thenReturn(page);
+
+        mvc.perform(get("/api/v1/items?categoria=GERAL&status=ATIVO&precoMin=100&precoMax=200"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.totalItems", is(1)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items/search?q=... - deve buscar por texto")
+    void deveBuscarPorTexto() throws Exception {
+        PagedResponse<ItemResponse> page = new PagedResponse<>(List.of(resp(7L, "Teclado")), 0, 10, 1, 1);
+        when(service.search("teclado", 0, 10)).thenReturn(page);
+
+        mvc.perform(get("/api/v1/items/search?q=teclado"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(7)))
+                .andExpect(jsonPath("$.totalItems", is(1)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items?after=2&limit=2 - deve listar por cursor")
+    void deveListarPorCursor() throws Exception {
+        CursorPage<ItemResponse> page = new CursorPage<>(
+                List.of(resp(3L, "C"), resp(4L, "D")), 2, 10, 4L
+        );
+        when(service.listAfter(2L, 2)).thenReturn(page);
+
+        mvc.perform(get("/api/v1/items?after=2&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(3)))
+                .andExpect(jsonPath("$.limit", is(2)))
+                .andExpect(jsonPath("$.totalItems", is(10)))
+                .andExpect(jsonPath("$.nextCursor", is(4)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items/export - deve exportar NDJSON em streaming")
+    void deveExportarNdjson() throws Exception {
+        exportaDoisItens();
+
+        MvcResult started = mvc.perform(get("/api/v1/items/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[0], ItemResponse.class).id());
+        assertEquals("B", objectMapper.readValue(lines[1], ItemResponse.class).nome());
+        assertTrue(body.endsWith("\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items/export?gzip=true - deve comprimir a exportação")
+    void deveExportarNdjsonComGzip() throws Exception {
+        exportaDoisItens();
+
+        MvcResult started = mvc.perform(get("/api/v1/items/export?gzip=true")).andReturn();
+        byte[] compressed = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(2, body.split("\n").length);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void exportaDoisItens() {
+        doAnswer(inv -> {
+            Consumer<ItemResponse> sink = inv.getArgument(0);
+            sink.accept(resp(1L, "A"));
+            sink.accept(resp(2L, "B"));
+            return 2L;
+        }).when(service).export(any(Consumer.class));
+    }
+
     @Test
     @DisplayName("GET /api/v1/items/{id} - deve retornar item por id")
     void deveBuscarPorId() throws Exception {
-        when(service.get(1L)).thenReturn(resp(1L, "Teclado"));
+        when(service.getVersioned(1L)).thenReturn(new VersionedItem(resp(1L, "Teclado"), 1));
 
         mvc.perform(get("/api/v1/items/{id}", 1L))
                 .andExpect(status().isOk())
@@ -103,6 +235,183 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.nome", is("Teclado")));
     }
 
+    @Test
+    @DisplayName("GET /api/v1/items/{id} - deve negociar CBOR e Smile pelo Accept, com ETag próprio")
+    void deveBuscarPorIdEmFormatoBinario() throws Exception {
+        when(service.getVersioned(1L)).thenReturn(new VersionedItem(resp(1L, "Teclado"), 3));
+
+        MvcResult cbor = mvc.perform(get("/api/v1/items/{id}", 1L).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn();
+        assertEquals("Teclado", new CBORMapper().readValue(cbor.getResponse().getContentAsByteArray(), ItemResponse.class).nome());
+        String etag = cbor.getResponse().getHeader("ETag");
+        assertTrue(etag.endsWith("+cbor\""), etag);
+
+        mvc.perform(get("/api/v1/items/{id}", 1L).accept("application/cbor").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        // a tag do CBOR não vale para o JSON
+        mvc.perform(get("/api/v1/items/{id}", 1L).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nome", is("Teclado")));
+
+        byte[] smile = mvc.perform(get("/api/v1/items/{id}", 1L).accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(1L, new SmileMapper().readValue(smile, ItemResponse.class).id());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items - deve listar em CBOR e aceitar CBOR no POST")
+    void deveListarECriarEmCbor() throws Exception {
+        when(service.list(0, 10)).thenReturn(new PagedResponse<>(List.of(resp(1L, "A"), resp(2L, "B")), 0, 10, 2, 1));
+        when(service.create(any(ItemRequest.class))).thenAnswer(inv -> resp(3L, inv.getArgument(0, ItemRequest.class).nome()));
+        CBORMapper cbor = new CBORMapper();
+
+        byte[] page = mvc.perform(get("/api/v1/items").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("B", cbor.readTree(page).get("items").get(1).get("nome").asText());
+
+        byte[] body = cbor.writeValueAsBytes(new ItemRequest("Mouse", "Desc", "ATIVO", 10.0, "GERAL"));
+        mvc.perform(post("/api/v1/items").contentType("application/cbor").content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.nome", is("Mouse")));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items/{id} - deve retornar 304 quando o ETag não mudou")
+    void deveRetornar304QuandoItemNaoMudou() throws Exception {
+        when(service.getVersioned(1L)).thenReturn(new VersionedItem(resp(1L, "Teclado"), 7));
+
+        String etag = mvc.perform(get("/api/v1/items/{id}", 1L))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        // forte: o mesmo valor serve ao If-Match
+        assertTrue(etag.startsWith("\""), etag);
+
+        mvc.perform(get("/api/v1/items/{id}", 1L).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // nova versão -> novo corpo
+        when(service.getVersioned(1L)).thenReturn(new VersionedItem(resp(1L, "Teclado 2"), 8));
+        mvc.perform(get("/api/v1/items/{id}", 1L).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nome", is("Teclado 2")));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items - deve servir a página repetida do cache de JSON")
+    void deveServirPaginaDoCache() throws Exception {
+        when(service.list(0, 10)).thenReturn(new PagedResponse<>(List.of(resp(1L, "A")), 0, 10, 1, 1));
+
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(get("/api/v1/items?page=0&size=10"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.items[0].nome", is("A")));
+        }
+        verify(service, times(1)).list(0, 10);
+
+        mvc.perform(get("/api/v1/items/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pages.hits", greaterThanOrEqualTo(2)))
+                .andExpect(jsonPath("$.pages.entries", is(1)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items/stats - deve retornar os agregados por categoria e status")
+    void deveRetornarEstatisticas() throws Exception {
+        when(service.stats()).thenReturn(new ItemStatsResponse(2,
+                List.of(new GroupStats("ELETR", 2, 1, 10.0, 10.0, 10.0, 10.0)),
+                List.of(new GroupStats("ATIVO", 2, 1, 10.0, 10.0, 10.0, 10.0))));
+
+        mvc.perform(get("/api/v1/items/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.totalItems", is(2)))
+                .andExpect(jsonPath("$.categorias[0].value", is("ELETR")))
+                .andExpect(jsonPath("$.categorias[0].priced", is(1)))
+                .andExpect(jsonPath("$.status[0].avg", is(10.0)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/items - deve retornar 304 sem montar a página quando nada mudou")
+    void deveRetornar304NaListaSemConsultarService() throws Exception {
+        when(service.modificationCount()).thenReturn(42L);
+        when(service.list(0, 10)).thenReturn(new PagedResponse<>(List.of(), 0, 10, 0, 0));
+
+        String etag = mvc.perform(get("/api/v1/items?page=0&size=10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        // fraca: só serve ao If-None-Match e deixa o Tomcat comprimir a página
+        assertTrue(etag.startsWith("W/\""), etag);
+
+        mvc.perform(get("/api/v1/items?page=0&size=10").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verify(service, times(1)).list(0, 10);
+    }
+
+    @Test
+    @DisplayName("PUT /api/v1/items/{id} com If-Match - deve repassar a versão e retornar 412 em conflito")
+    void deveRetornar412QuandoIfMatchNaoConfere() throws Exception {
+        when(service.getVersioned(10L)).thenReturn(new VersionedItem(resp(10L, "Mouse"), 3));
+        String etag = mvc.perform(get("/api/v1/items/{id}", 10L)).andReturn().getResponse().getHeader("ETag");
+
+        when(service.update(eq(10L), any(ItemRequest.class), eq(3L))).thenThrow(new VersionConflictException(10L));
+        mvc.perform(put("/api/v1/items/{id}", 10L)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req("Mouse Pro", 249.9))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error", is("VERSION_CONFLICT")));
+
+        // tag de outro processo (ou malformada) nunca casa
+        when(service.update(eq(10L), any(ItemRequest.class), eq(-2L))).thenThrow(new VersionConflictException(10L));
+        mvc.perform(put("/api/v1/items/{id}", 10L)
+                        .header("If-Match", "\"outra-epoca-3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req("Mouse Pro", 249.9))))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PATCH /api/v1/items/{id} - deve aplicar merge patch com a versão do If-Match")
+    void deveAplicarMergePatch() throws Exception {
+        when(service.getVersioned(10L)).thenReturn(new VersionedItem(resp(10L, "Mouse"), 4));
+        String etag = mvc.perform(get("/api/v1/items/{id}", 10L)).andReturn().getResponse().getHeader("ETag");
+        when(service.patch(eq(10L), any(ItemPatch.class), eq(4L))).thenReturn(resp(10L, "Mouse Pro"));
+
+        mvc.perform(patch("/api/v1/items/{id}", 10L)
+                        .header("If-Match", etag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"nome\":\"Mouse Pro\",\"descricao\":null}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nome", is("Mouse Pro")));
+
+        when(service.patch(eq(10L), any(ItemPatch.class), eq(4L))).thenThrow(new VersionConflictException(10L));
+        mvc.perform(patch("/api/v1/items/{id}", 10L)
+                        .header("If-Match", etag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"preco\":10}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PATCH /api/v1/items/{id} - deve rejeitar campo desconhecido com 400")
+    void deveRejeitarPatchInvalido() throws Exception {
+        mvc.perform(patch("/api/v1/items/{id}", 10L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"id\":99}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("INVALID_PATCH")));
+        verify(service, times(0)).patch(any(), any());
+    }
+
     @Test
     @DisplayName("POST /api/v1/items - deve criar item com sucesso (201)")
     void deveCriarItemComSucesso() throws Exception {
@@ -118,6 +427,49 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.nome", is("Mouse")));
     }
 
+    @Test
+    @DisplayName("POST /api/v1/items:batch - deve retornar resultado por operação")
+    void deveAplicarLote() throws Exception {
+        BatchResponse resp = new BatchResponse(List.of(
+                new BatchResult(0, "create", 1L, 201, null),
+                new BatchResult(1, "delete", 999L, 404, "Item com id=999 não encontrado")
+        ), 1, 1);
+        when(service.applyBatch(any())).thenReturn(resp);
+
+        mvc.perform(post("/api/v1/items:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\":[{\"op\":\"create\",\"item\":{\"nome\":\"A\"}},{\"op\":\"delete\",\"id\":999}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded", is(1)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is(404)));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/items/import - deve importar NDJSON com gzip e retornar o resumo")
+    void deveImportarNdjson() throws Exception {
+        when(importer.importNdjson(any(InputStream.class))).thenAnswer(inv -> {
+            String body = new String(inv.getArgument(0, InputStream.class).readAllBytes(), StandardCharsets.UTF_8);
+            long lines = body.lines().count();
+            return new ImportSummary(lines, lines - 1, 1, List.of(new ImportError(2, "JSON inválido")));
+        });
+
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+            out.write("{\"nome\":\"A\"}\n{quebrado\n{\"nome\":\"C\"}\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        mvc.perform(post("/api/v1/items/import")
+                        .contentType("application/x-ndjson")
+                        .header("Content-Encoding", "gzip")
+                        .content(gz.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines", is(3)))
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)));
+    }
+
     @Test
     @DisplayName("PUT /api/v1/items/{id} - deve atualizar item com sucesso (200)")
     void deveAtualizarItemComSucesso() throws Exception {
@@ -147,7 +499,7 @@ class ItemControllerTest {
     @Test
     @DisplayName("GET /api/v1/items/{id} - deve retornar 404 quando não encontrar")
     void deveRetornar404QuandoNaoEncontrarItem() throws Exception {
-        when(service.get(999L)).thenThrow(new ItemNotFoundException(999L));
+        when(service.getVersioned(999L)).thenThrow(new ItemNotFoundException(999L));
 
         mvc.perform(get("/api/v1/items/{id}", 999L))
                 .andExpect(status().isNotFound())
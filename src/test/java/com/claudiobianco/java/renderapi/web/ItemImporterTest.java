@@ -0,0 +1,102 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.ImportSummary;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemImporterTest {
+
+    private final ItemService service = new ItemService();
+    private final ItemImporter importer = new ItemImporter(service, new ObjectMapper(), 2, 10, 200);
+
+    @AfterEach
+    void shutdown() {
+        importer.shutdown();
+    }
+
+    private ImportSummary importa(String ndjson) throws Exception {
+        return importer.importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void importaEmBlocosParalelosComIdsUnicos() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            ndjson.append("{\"nome\":\"Item ").append(i).append("\",\"status\":\"ATIVO\",\"preco\":").append(i).append("}\n");
+        }
+
+        ImportSummary summary = importa(ndjson.toString());
+
+        assertEquals(1_000, summary.lines());
+        assertEquals(1_000, summary.imported());
+        assertEquals(0, summary.rejected());
+        List<ItemResponse> all = service.listAfter(0, 2_000).items();
+        assertEquals(1_000, all.size());
+        Set<String> nomes = new HashSet<>();
+        all.forEach(it -> nomes.add(it.nome()));
+        assertEquals(1_000, nomes.size());
+        assertEquals(1_000, service.lastId());
+    }
+
+    @Test
+    void reportaLinhasRejeitadasComNumeroDaLinha() throws Exception {
+        ImportSummary summary = importa("""
+                {"nome":"A","preco":1.0}
+
+                {"nome":"B", quebrado
+                null
+                {"nome":"C","preco":"caro"}
+                {"nome":"D"}
+                """);
+
+        assertEquals(5, summary.lines());
+        assertEquals(2, summary.imported());
+        assertEquals(3, summary.rejected());
+        assertEquals(List.of(3L, 4L, 5L), summary.errors().stream().map(e -> e.line()).toList());
+        assertEquals(2, service.list(0, 10).totalItems());
+    }
+
+    @Test
+    void falhaAoGravarUmBlocoInterrompeAImportacaoEmQualquerThread() {
+        // uma thread e fila de 2: parte dos blocos roda no pool e parte na thread que lê
+        ItemImporter single = new ItemImporter(service, new ObjectMapper(), 1, 10, 200);
+        AtomicInteger appended = new AtomicInteger();
+        service.setJournal(change -> {
+            if (appended.incrementAndGet() > 25) throw new IllegalStateException("disco cheio");
+        });
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 200; i++) ndjson.append("{\"nome\":\"Item ").append(i).append("\"}\n");
+
+        try {
+            ImportFailedException e = assertThrows(ImportFailedException.class, () ->
+                    single.importNdjson(new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8))));
+            assertTrue(e.getMessage().contains("disco cheio"), e.getMessage());
+            assertEquals(25, service.list(0, 100).totalItems());
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void linhaMaiorQueOLimiteERejeitadaSemInterromperAsOutras() throws Exception {
+        String enorme = "{\"nome\":\"" + "x".repeat(100_000) + "\"}";
+        ImportSummary summary = importa("{\"nome\":\"A\"}\r\n" + enorme + "\r\n{\"nome\":\"B\"}\n" + enorme);
+
+        assertEquals(4, summary.lines());
+        assertEquals(2, summary.imported());
+        assertEquals(List.of(2L, 4L), summary.errors().stream().map(e -> e.line()).toList());
+        assertTrue(summary.errors().get(0).error().contains("200"), summary.errors().get(0).error());
+    }
+}
@@ -0,0 +1,103 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.CacheStats;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemJsonCacheTest {
+
+    private final ItemService service = new ItemService();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ItemRequest req(String nome, double preco) {
+        return new ItemRequest(nome, "Desc", "ATIVO", preco, "GERAL");
+    }
+
+    private String page(ItemJsonCache cache, int page, int size, AtomicInteger loads) {
+        byte[] json = cache.page(page, size, () -> {
+            loads.incrementAndGet();
+            return service.list(page, size);
+        });
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void itemSoAcertaNaMesmaVersao() throws Exception {
+        ItemJsonCache cache = new ItemJsonCache(service, objectMapper, DataSize.ofMegabytes(1));
+        long id = service.create(req("A", 1.0)).id();
+
+        byte[] first = cache.item(service.getVersioned(id));
+        assertSame(first, cache.item(service.getVersioned(id)));
+        assertArrayEquals(objectMapper.writeValueAsBytes(service.get(id)), first);
+
+        service.update(id, req("B", 2.0));
+        String json = new String(cache.item(service.getVersioned(id)), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"nome\":\"B\""));
+
+        CacheStats.Region stats = cache.stats().items();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.invalidations());
+    }
+
+    @Test
+    void updateInvalidaSoAPaginaQueContemOItem() {
+        ItemJsonCache cache = new ItemJsonCache(service, objectMapper, DataSize.ofMegabytes(1));
+        for (int i = 1; i <= 20; i++) service.create(req("Item " + i, i));
+        AtomicInteger loads = new AtomicInteger();
+
+        page(cache, 0, 10, loads);
+        page(cache, 1, 10, loads);
+        page(cache, 0, 10, loads);
+        assertEquals(2, loads.get());
+
+        service.update(15L, req("Alterado", 15.0));
+        page(cache, 0, 10, loads);
+        assertEquals(2, loads.get());
+        assertTrue(page(cache, 1, 10, loads).contains("Alterado"));
+        assertEquals(3, loads.get());
+
+        // create muda o total de todas as páginas
+        service.create(req("Novo", 21.0));
+        assertTrue(page(cache, 0, 10, loads).contains("\"totalItems\":21"));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void respeitaOLimiteDeBytesDescartandoAsMenosLidas() {
+        ItemJsonCache cache = new ItemJsonCache(service, objectMapper, DataSize.ofKilobytes(16));
+        for (int i = 0; i < 500; i++) service.create(req("Item " + i, i));
+
+        long hot = 1;
+        for (long id = 1; id <= 500; id++) {
+            cache.item(service.getVersioned(hot));
+            cache.item(service.getVersioned(id));
+        }
+
+        CacheStats.Region stats = cache.stats().items();
+        assertTrue(stats.bytes() <= stats.maxBytes(), () -> "bytes=" + stats.bytes());
+        assertTrue(stats.evictions() > 0);
+        // o item lido o tempo todo sobrevive às varreduras
+        assertTrue(stats.hits() >= 490, () -> "hits=" + stats.hits());
+    }
+
+    @Test
+    void limiteZeroDesligaOCache() {
+        ItemJsonCache cache = new ItemJsonCache(service, objectMapper, DataSize.ofBytes(0));
+        long id = service.create(req("A", 1.0)).id();
+
+        cache.item(service.getVersioned(id));
+        cache.item(service.getVersioned(id));
+
+        assertEquals(0, cache.stats().items().hits());
+        assertEquals(0, cache.stats().items().entries());
+    }
+}
@@ -0,0 +1,107 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.domain.ItemService;
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+class ItemReactiveControllerTest {
+
+    @Autowired
+    ReactiveWebServerApplicationContext context;
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    ItemService service;
+
+    private ItemRequest req(String nome) {
+        return new ItemRequest(nome, "Desc", "ATIVO", 10.0, "GERAL");
+    }
+
+    @Test
+    void sobeNoNettySemOsBeansDoServlet() {
+        assertInstanceOf(NettyWebServer.class, context.getWebServer());
+        assertTrue(context.getBeansOfType(ItemController.class).isEmpty());
+        assertTrue(context.getBeansOfType(AccessLogFilter.class).isEmpty());
+    }
+
+    @Test
+    void fluxoCompletoComETagE404() {
+        ItemResponse created = client.post().uri("/api/v1/items").bodyValue(req("Fonte"))
+                .exchange().expectStatus().isCreated()
+                .expectBody(ItemResponse.class).returnResult().getResponseBody();
+        String uri = "/api/v1/items/" + created.id();
+
+        String etag = client.get().uri(uri).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.nome").isEqualTo("Fonte")
+                .returnResult().getResponseHeaders().getETag();
+        client.get().uri(uri).header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified();
+
+        client.put().uri(uri).header(HttpHeaders.IF_MATCH, etag).bodyValue(req("Fonte 700W"))
+                .exchange().expectStatus().isOk()
+                .expectBody().jsonPath("$.nome").isEqualTo("Fonte 700W");
+        // a tag antiga já não corresponde à versão atual
+        client.put().uri(uri).header(HttpHeaders.IF_MATCH, etag).bodyValue(req("X"))
+                .exchange().expectStatus().isEqualTo(412);
+
+        client.delete().uri(uri).exchange().expectStatus().isOk()
+                .expectBody().jsonPath("$.deleted").isEqualTo(true);
+        client.get().uri(uri).exchange().expectStatus().isNotFound()
+                .expectBody().jsonPath("$.error").isEqualTo("ITEM_NOT_FOUND");
+    }
+
+    @Test
+    void listaPaginadaEStatsComoNoServlet() {
+        service.create(req("Lista"));
+        client.get().uri("/api/v1/items?page=0&size=5").exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody().jsonPath("$.size").isEqualTo(5).jsonPath("$.items").isArray();
+        client.get().uri("/api/v1/items/stats").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.categorias[0].value").isEqualTo("GERAL");
+    }
+
+    @Test
+    void exportaEListaEmNdjsonSobDemanda() {
+        List<ItemRequest> many = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) many.add(req("N" + i));
+        service.createAll(many);
+        long total = service.list(0, 1).totalItems();
+
+        List<String> exported = client.get().uri("/api/v1/items/export").accept(MediaType.parseMediaType("application/x-ndjson"))
+                .exchange().expectStatus().isOk()
+                .returnResult(String.class).getResponseBody().collectList().block(Duration.ofSeconds(10));
+        assertEquals(total, exported.size());
+        assertTrue(exported.get(0).startsWith("{\"id\":"), exported.get(0));
+
+        List<String> firstPage = client.get().uri("/api/v1/items/stream?after=0&limit=1500")
+                .exchange().expectStatus().isOk()
+                .returnResult(String.class).getResponseBody().collectList().block(Duration.ofSeconds(10));
+        assertEquals(1500, firstPage.size());
+
+        // o cliente para de ler cedo: o resto não precisa ser gerado
+        List<String> head = client.get().uri("/api/v1/items/export")
+                .exchange().returnResult(String.class).getResponseBody().take(3).collectList().block(Duration.ofSeconds(10));
+        assertEquals(3, head.size());
+    }
+}
@@ -0,0 +1,45 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    TestRestTemplate rest;
+
+    @Test
+    void expoeTimersGaugesEContadorDe404NoPrometheus() {
+        String base = "http://localhost:" + port;
+        ItemResponse created = rest.postForObject(base + "/api/v1/items",
+                new ItemRequest("Monitor", "27 polegadas", "ATIVO", 1500.0, "ELETR"), ItemResponse.class);
+        rest.getForEntity(base + "/api/v1/items/" + created.id(), String.class);
+        assertEquals(HttpStatus.NOT_FOUND, rest.getForEntity(base + "/api/v1/items/999999", String.class).getStatusCode());
+
+        ResponseEntity<String> scrape = rest.getForEntity(base + "/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, scrape.getStatusCode());
+        String body = scrape.getBody();
+        assertTrue(body.contains("items_not_found_total 1.0"), body);
+        assertTrue(body.contains("items_service_seconds_count{method=\"get\"} 2"), body);
+        assertTrue(body.contains("items_service_seconds_bucket{method=\"create\",le=\"1.0E-6\"}"));
+        assertTrue(body.contains("http_server_requests_seconds_bucket{error=\"none\",exception=\"none\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/api/v1/items/{id}\",le=\"5.0E-5\"}"));
+        assertTrue(body.contains("items_store_size"));
+        assertTrue(body.contains("items_index_keys{index=\"categoria\"}"));
+        assertTrue(body.contains("items_cache_misses_total{region=\"items\"}"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.claudiobianco.java.renderapi.web;
+
+import com.claudiobianco.java.renderapi.web.dto.ItemRequest;
+import com.claudiobianco.java.renderapi.web.dto.ItemResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Compressão do Tomcat de verdade (o MockMvc não passa pelo conector). */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ResponseCompressionTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    TestRestTemplate rest;
+
+    String base() { return "http://localhost:" + port + "/api/v1/items"; }
+
+    @Test
+    void comprimeSoRespostasGrandesQuandoOClientePede() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            rest.postForEntity(base(), new ItemRequest("Item " + i, "Descrição longa o bastante", "ATIVO", 10.0 + i, "GERAL"), ItemResponse.class);
+        }
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<byte[]> page = client.send(HttpRequest.newBuilder(URI.create(base() + "?size=30"))
+                .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals("gzip", page.headers().firstValue("Content-Encoding").orElse(null));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(page.body()))) {
+            assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("\"Item 29\""));
+        }
+
+        // a tag da listagem é fraca (o Tomcat não comprime com ETag forte) e continua valendo no If-None-Match
+        String etag = page.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("W/\""), etag);
+        HttpResponse<byte[]> again = client.send(HttpRequest.newBuilder(URI.create(base() + "?size=30"))
+                .header("Accept-Encoding", "gzip").header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(304, again.statusCode());
+
+        // abaixo de server.compression.min-response-size vai sem compressão
+        HttpResponse<String> small = client.send(HttpRequest.newBuilder(URI.create(base() + "?size=1"))
+                .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+        assertTrue(small.body().startsWith("{"), small.body());
+    }
+}